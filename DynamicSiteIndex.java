@@ -0,0 +1,183 @@
+package DaaProject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+// Mutable fixed-radius index for site inventories that change while they are being queried.
+// Sites live in a hash grid with cells as wide as the view range, and every site carries the
+// number of sites within view range of it (itself included). Inserting or removing a site only
+// touches the sites in its 27 surrounding cells, so the best camera site can be re-read right
+// after each change instead of rebuilding the index and recounting every candidate.
+public final class DynamicSiteIndex {
+
+    final double viewRange;
+    private final double rangeSquared;
+
+    // Slot storage; freed slots are reused
+    private int[] ids = new int[16];
+    private double[] xs = new double[16], ys = new double[16], zs = new double[16];
+    private int[] coverage = new int[16];
+    private int[] sequence = new int[16];
+    private int[] freeSlots = new int[16];
+    private int freeCount, slotCount, nextSequence;
+
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final Map<Long, Bucket> cells = new HashMap<>();
+
+    // Ranking keys pack (coverage, inverted insertion sequence), so the highest key is the
+    // site with the most coverage and, among equals, the one inserted first
+    private final TreeMap<Long, Integer> ranking = new TreeMap<>();
+
+    DynamicSiteIndex(double viewRange) {
+        if (!(viewRange > 0)) throw new IllegalArgumentException("View range must be positive: " + viewRange);
+
+        this.viewRange = viewRange;
+        this.rangeSquared = viewRange * viewRange;
+    }
+
+    int size() {
+        return slotById.size();
+    }
+
+    boolean contains(int id) {
+        return slotById.containsKey(id);
+    }
+
+    void insert(int id, double x, double y, double z) {
+        if (slotById.containsKey(id)) throw new IllegalArgumentException("Duplicate site id: " + id);
+
+        int slot = allocateSlot();
+        ids[slot] = id;
+        xs[slot] = x;
+        ys[slot] = y;
+        zs[slot] = z;
+        sequence[slot] = nextSequence++;
+        slotById.put(id, slot);
+
+        int[] count = {1};
+        forEachSlotInRange(x, y, z, neighbor -> {
+            updateCoverage(neighbor, 1);
+            count[0]++;
+        });
+        coverage[slot] = count[0];
+        ranking.put(rankingKey(slot), slot);
+        cells.computeIfAbsent(cellKey(x, y, z), key -> new Bucket()).add(slot);
+    }
+
+    void remove(int id) {
+        Integer boxedSlot = slotById.remove(id);
+        if (boxedSlot == null) throw new IllegalArgumentException("Unknown site id: " + id);
+
+        int slot = boxedSlot;
+        long key = cellKey(xs[slot], ys[slot], zs[slot]);
+        Bucket bucket = cells.get(key);
+        bucket.remove(slot);
+        if (bucket.size == 0) cells.remove(key);
+
+        ranking.remove(rankingKey(slot));
+        forEachSlotInRange(xs[slot], ys[slot], zs[slot], neighbor -> updateCoverage(neighbor, -1));
+
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    // Id of the site covering the most sites, or -1 when the index is empty
+    int optimalSiteId() {
+        Map.Entry<Long, Integer> best = ranking.lastEntry();
+        return best == null ? -1 : ids[best.getValue()];
+    }
+
+    // Number of sites within view range of the site, itself included
+    int coverage(int id) {
+        Integer slot = slotById.get(id);
+        if (slot == null) throw new IllegalArgumentException("Unknown site id: " + id);
+        return coverage[slot];
+    }
+
+    // Passes the id of every other site within view range of the given site to the visitor
+    void forEachNeighbor(int id, IntConsumer visitor) {
+        Integer slot = slotById.get(id);
+        if (slot == null) throw new IllegalArgumentException("Unknown site id: " + id);
+        forEachSlotInRange(xs[slot], ys[slot], zs[slot], neighbor -> {
+            if (neighbor != slot) visitor.accept(ids[neighbor]);
+        });
+    }
+
+    private void forEachSlotInRange(double x, double y, double z, IntConsumer visitor) {
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        for (int i = cx - 1; i <= cx + 1; i++) {
+            for (int j = cy - 1; j <= cy + 1; j++) {
+                for (int k = cz - 1; k <= cz + 1; k++) {
+                    Bucket bucket = cells.get(pack(i, j, k));
+                    if (bucket == null) continue;
+                    for (int b = 0; b < bucket.size; b++) {
+                        int slot = bucket.slots[b];
+                        if (Geometry.withinRange(x, y, z, xs[slot], ys[slot], zs[slot], rangeSquared)) {
+                            visitor.accept(slot);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void updateCoverage(int slot, int delta) {
+        ranking.remove(rankingKey(slot));
+        coverage[slot] += delta;
+        ranking.put(rankingKey(slot), slot);
+    }
+
+    private long rankingKey(int slot) {
+        return ((long) coverage[slot] << 32) | (0xFFFFFFFFL - (sequence[slot] & 0xFFFFFFFFL));
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            coverage = Arrays.copyOf(coverage, capacity);
+            sequence = Arrays.copyOf(sequence, capacity);
+        }
+        return slotCount++;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / viewRange);
+    }
+
+    private long cellKey(double x, double y, double z) {
+        return pack(cell(x), cell(y), cell(z));
+    }
+
+    private static long pack(int cx, int cy, int cz) {
+        return ((cx + (1L << 20)) & 0x1FFFFF) << 42 | ((cy + (1L << 20)) & 0x1FFFFF) << 21 | ((cz + (1L << 20)) & 0x1FFFFF);
+    }
+
+    // Unordered slot list of one grid cell
+    private static class Bucket {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package DaaProject;
+
+// Shared distance kernel for the placement variants. Range tests compare the squared distance
+// against the squared view range, so the inner loops never go through Math.pow or Math.sqrt.
+public final class Geometry {
+
+    private Geometry() {
+    }
+
+    // Squared Euclidean distance between two points
+    static double distanceSquared(double x1, double y1, double z1, double x2, double y2, double z2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        double dz = z1 - z2;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // True when the two points are at most sqrt(rangeSquared) apart
+    static boolean withinRange(double x1, double y1, double z1, double x2, double y2, double z2, double rangeSquared) {
+        return distanceSquared(x1, y1, z1, x2, y2, z2) <= rangeSquared;
+    }
+
+    // Batched variant: counts the points of a structure-of-arrays block [from, to) that lie within
+    // range of the query point. The loop body is branch-free so the JIT can unroll and vectorise it.
+    static int countWithinRange(double qx, double qy, double qz,
+                                double[] xs, double[] ys, double[] zs,
+                                int from, int to, double rangeSquared) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            double dx = xs[i] - qx;
+            double dy = ys[i] - qy;
+            double dz = zs[i] - qz;
+            count += dx * dx + dy * dy + dz * dz <= rangeSquared ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,128 @@
+package DaaProject;
+
+import java.util.Arrays;
+
+// Hilbert curve ordering of 3D points. Coordinates are quantised to 21 bits per axis over the
+// points' bounding cube and mapped to a 63-bit curve index (Skilling's transpose algorithm);
+// sorting by that index keeps points that are close in space close in memory.
+public final class HilbertCurve {
+
+    static final int BITS = 21;
+    private static final int MAX_COORDINATE = (1 << BITS) - 1;
+
+    private HilbertCurve() {
+    }
+
+    // Curve index of the cell (x, y, z), each coordinate in [0, 2^21)
+    static long index(int x, int y, int z) {
+        // Inverse undo excess work
+        for (int q = 1 << (BITS - 1); q > 1; q >>>= 1) {
+            int p = q - 1;
+            if ((x & q) != 0) {
+                x ^= p;
+            }
+            if ((y & q) != 0) {
+                x ^= p;
+            } else {
+                int t = (x ^ y) & p;
+                x ^= t;
+                y ^= t;
+            }
+            if ((z & q) != 0) {
+                x ^= p;
+            } else {
+                int t = (x ^ z) & p;
+                x ^= t;
+                z ^= t;
+            }
+        }
+
+        // Gray encode
+        y ^= x;
+        z ^= y;
+        int t = 0;
+        for (int q = 1 << (BITS - 1); q > 1; q >>>= 1) {
+            if ((z & q) != 0) t ^= q - 1;
+        }
+        x ^= t;
+        y ^= t;
+        z ^= t;
+
+        // Interleave the transposed bits, most significant first
+        long key = 0;
+        for (int bit = BITS - 1; bit >= 0; bit--) {
+            key = (key << 3) | ((long) ((x >>> bit) & 1) << 2) | (((y >>> bit) & 1) << 1) | ((z >>> bit) & 1);
+        }
+        return key;
+    }
+
+    // Permutation that sorts the first `size` points along the curve: entry i is the index of the
+    // point that goes to position i. Points in the same cell keep their relative order.
+    static int[] sortOrder(double[] xs, double[] ys, double[] zs, int size) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            minZ = Math.min(minZ, zs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+        }
+
+        // One scale for all axes, so the curve's cells are cubes
+        double extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        double scale = extent > 0 ? MAX_COORDINATE / extent : 0;
+
+        long[] keys = new long[size];
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            int x = (int) Math.min(MAX_COORDINATE, (xs[i] - minX) * scale);
+            int y = (int) Math.min(MAX_COORDINATE, (ys[i] - minY) * scale);
+            int z = (int) Math.min(MAX_COORDINATE, (zs[i] - minZ) * scale);
+            keys[i] = index(x, y, z);
+            order[i] = i;
+        }
+
+        radixSort(keys, order, size);
+        return order;
+    }
+
+    // Stable LSD radix sort of the keys, carrying the indices along, 16 bits per pass
+    private static void radixSort(long[] keys, int[] order, int size) {
+        int[] result = order;
+        long[] keyBuffer = new long[size];
+        int[] orderBuffer = new int[size];
+        int[] counts = new int[1 << 16];
+
+        for (int shift = 0; shift < 3 * BITS; shift += 16) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) counts[(int) (keys[i] >>> shift) & 0xFFFF]++;
+
+            // All keys share this digit: the pass would not move anything
+            if (size > 0 && counts[(int) (keys[0] >>> shift) & 0xFFFF] == size) continue;
+
+            int total = 0;
+            for (int d = 0; d < counts.length; d++) {
+                int count = counts[d];
+                counts[d] = total;
+                total += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int position = counts[(int) (keys[i] >>> shift) & 0xFFFF]++;
+                keyBuffer[position] = keys[i];
+                orderBuffer[position] = order[i];
+            }
+
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapOrder = order;
+            order = orderBuffer;
+            orderBuffer = swapOrder;
+        }
+
+        // After an odd number of passes the sorted indices sit in what was the buffer
+        if (order != result) System.arraycopy(order, 0, result, 0, size);
+    }
+}
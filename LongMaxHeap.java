@@ -0,0 +1,60 @@
+package DaaProject;
+
+import java.util.Arrays;
+
+// Binary max-heap of packed (gain, node) entries. Among equal gains the lower node ordinal
+// sorts first, which matches the first-wins tie-break of a plain greedy scan.
+public final class LongMaxHeap {
+    private long[] entries;
+    private int size;
+
+    LongMaxHeap(int capacity) {
+        entries = new long[Math.max(1, capacity)];
+    }
+
+    static long entry(int gain, int node) {
+        return ((long) gain << 32) | (Integer.MAX_VALUE - node);
+    }
+
+    static int gain(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    static int node(long entry) {
+        return Integer.MAX_VALUE - (int) entry;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(long entry) {
+        if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (entries[parent] >= entry) break;
+            entries[i] = entries[parent];
+            i = parent;
+        }
+        entries[i] = entry;
+    }
+
+    long pop() {
+        long top = entries[0];
+        long last = entries[--size];
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && entries[child + 1] > entries[child]) child++;
+            if (entries[child] <= last) break;
+            entries[i] = entries[child];
+            i = child;
+        }
+        entries[i] = last;
+        return top;
+    }
+}
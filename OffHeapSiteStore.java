@@ -0,0 +1,120 @@
+package DaaProject;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+// Site store kept outside the Java heap in direct buffers. Each column (id, x, y, z) is split
+// into chunks of 2^20 sites, so the store grows without copying and every site costs 28 bytes
+// with nothing for the garbage collector to trace. Positions are ints, so a store holds at most
+// 2^31 - 1 sites. Only the inventory stays off the heap: the k-d tree and grid built from it
+// copy the coordinates into heap arrays. Direct buffers are released when the store becomes
+// unreachable; close() drops the references early.
+//
+// java.lang.foreign is still incubating on the Java 17 toolchain, so this uses ByteBuffer.allocateDirect.
+public final class OffHeapSiteStore implements SiteColumns, AutoCloseable {
+
+    private static final double R = 6371; // Earth's radius in km
+
+    static final int CHUNK_SHIFT = 20;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private IntBuffer[] ids = new IntBuffer[8];
+    private DoubleBuffer[] xs = new DoubleBuffer[8], ys = new DoubleBuffer[8], zs = new DoubleBuffer[8];
+    private int chunks;
+    private int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Bytes of direct memory held by the allocated chunks
+    long memoryBytes() {
+        return (long) chunks * CHUNK_SIZE * (Integer.BYTES + 3 * Double.BYTES);
+    }
+
+    // Latitude/Longitude to Cartesian conversion
+    void add(int id, double lat, double lon) {
+        double latRadians = Math.toRadians(lat), lonRadians = Math.toRadians(lon);
+        double cosLat = Math.cos(latRadians);
+        addCartesian(id, R * cosLat * Math.cos(lonRadians), R * cosLat * Math.sin(lonRadians), R * Math.sin(latRadians));
+    }
+
+    void addCartesian(int id, double x, double y, double z) {
+        if (size == Integer.MAX_VALUE) throw new IllegalStateException("Site store is full: " + size);
+        int chunk = size >>> CHUNK_SHIFT, offset = size & CHUNK_MASK;
+        if (chunk == chunks) addChunk();
+
+        ids[chunk].put(offset, id);
+        xs[chunk].put(offset, x);
+        ys[chunk].put(offset, y);
+        zs[chunk].put(offset, z);
+        size++;
+    }
+
+    private void addChunk() {
+        if (chunks == ids.length) {
+            ids = Arrays.copyOf(ids, chunks * 2);
+            xs = Arrays.copyOf(xs, chunks * 2);
+            ys = Arrays.copyOf(ys, chunks * 2);
+            zs = Arrays.copyOf(zs, chunks * 2);
+        }
+        ids[chunks] = allocate(Integer.BYTES).asIntBuffer();
+        xs[chunks] = allocate(Double.BYTES).asDoubleBuffer();
+        ys[chunks] = allocate(Double.BYTES).asDoubleBuffer();
+        zs[chunks] = allocate(Double.BYTES).asDoubleBuffer();
+        chunks++;
+    }
+
+    private static ByteBuffer allocate(int width) {
+        return ByteBuffer.allocateDirect(CHUNK_SIZE * width).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public int id(int i) {
+        return ids[i >>> CHUNK_SHIFT].get(i & CHUNK_MASK);
+    }
+
+    @Override
+    public double x(int i) {
+        return xs[i >>> CHUNK_SHIFT].get(i & CHUNK_MASK);
+    }
+
+    @Override
+    public double y(int i) {
+        return ys[i >>> CHUNK_SHIFT].get(i & CHUNK_MASK);
+    }
+
+    @Override
+    public double z(int i) {
+        return zs[i >>> CHUNK_SHIFT].get(i & CHUNK_MASK);
+    }
+
+    // Bulk copies chunk by chunk
+    @Override
+    public void copyCoordinates(int from, int to, double[] xDest, double[] yDest, double[] zDest) {
+        int i = from;
+        while (i < to) {
+            int chunk = i >>> CHUNK_SHIFT, offset = i & CHUNK_MASK;
+            int length = Math.min(to - i, CHUNK_SIZE - offset);
+            xs[chunk].get(offset, xDest, i - from, length);
+            ys[chunk].get(offset, yDest, i - from, length);
+            zs[chunk].get(offset, zDest, i - from, length);
+            i += length;
+        }
+    }
+
+    @Override
+    public void close() {
+        ids = new IntBuffer[8];
+        xs = new DoubleBuffer[8];
+        ys = new DoubleBuffer[8];
+        zs = new DoubleBuffer[8];
+        chunks = 0;
+        size = 0;
+    }
+}
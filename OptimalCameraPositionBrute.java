@@ -3,6 +3,8 @@ package DaaProject;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class OptimalCameraPositionBrute {
 
@@ -21,27 +23,43 @@ public class OptimalCameraPositionBrute {
     static class Graph {
         List<Node> nodes = new ArrayList<>();
 
+        // Structure-of-arrays copy of the node coordinates for the batched distance kernel
+        private double[] xs, ys, zs;
+
         void addNode(Node node) {
             nodes.add(node);
+            xs = ys = zs = null;
+        }
+
+        private void ensureCoordinates() {
+            if (xs != null) return;
+
+            int n = nodes.size();
+            double[] newXs = new double[n], newYs = new double[n], newZs = new double[n];
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                newXs[i] = node.x;
+                newYs[i] = node.y;
+                newZs[i] = node.z;
+            }
+            ys = newYs;
+            zs = newZs;
+            xs = newXs;
         }
 
         // Brute force optimized: Find the optimal camera position by evaluating only node positions
         Node findOptimalCameraPosition(double viewRange) {
             if (nodes.isEmpty()) return null;
 
+            long start = PlacementMetrics.start();
+            ensureCoordinates();
+
             Node optimalNode = null;
             int maxCoveredNodes = 0;
 
             // Loop through each node and check how many nodes it can cover
             for (Node candidateNode : nodes) {
-                int coveredNodesCount = 0;
-
-                // Check the distance from this candidate node to every other node
-                for (Node targetNode : nodes) {
-                    if (distance(candidateNode, targetNode) <= viewRange) {
-                        coveredNodesCount++;
-                    }
-                }
+                int coveredNodesCount = countCoveredNodes(candidateNode, viewRange);
 
                 // Update the optimal node based on the maximum coverage
                 if (coveredNodesCount > maxCoveredNodes) {
@@ -50,12 +68,146 @@ public class OptimalCameraPositionBrute {
                 }
             }
 
+            PlacementMetrics.record(PlacementMetrics.Phase.OPTIMAL_SEARCH, start);
             return optimalNode;
         }
 
+        // Check the distance from the candidate node to every other node
+        int countCoveredNodes(Node candidateNode, double viewRange) {
+            ensureCoordinates();
+            if (PlacementMetrics.ENABLED) PlacementMetrics.DISTANCE_EVALUATIONS.add(nodes.size());
+            return Geometry.countWithinRange(candidateNode.x, candidateNode.y, candidateNode.z,
+                    xs, ys, zs, 0, nodes.size(), viewRange * viewRange);
+        }
+
+        // Parallel variant on the common fork-join pool
+        Node findOptimalCameraPositionParallel(double viewRange) {
+            return findOptimalCameraPositionParallel(viewRange, ForkJoinPool.commonPool());
+        }
+
+        // Candidates are split across the pool and the per-task winners merged. Ties go to the
+        // earlier node, so the result is the same node the serial loop returns.
+        Node findOptimalCameraPositionParallel(double viewRange, ForkJoinPool pool) {
+            if (nodes.isEmpty()) return null;
+
+            long start = PlacementMetrics.start();
+            ensureCoordinates();
+            Candidate best = pool.invoke(new CandidateTask(this, viewRange, 0, nodes.size()));
+            PlacementMetrics.record(PlacementMetrics.Phase.OPTIMAL_SEARCH, start);
+            return best.coveredNodesCount > 0 ? nodes.get(best.index) : null;
+        }
+
+        // Best (node index, coverage) pair found within one slice of the candidates
+        static class Candidate {
+            final int index;
+            final int coveredNodesCount;
+
+            Candidate(int index, int coveredNodesCount) {
+                this.index = index;
+                this.coveredNodesCount = coveredNodesCount;
+            }
+
+            static Candidate better(Candidate a, Candidate b) {
+                if (a.coveredNodesCount != b.coveredNodesCount) {
+                    return a.coveredNodesCount > b.coveredNodesCount ? a : b;
+                }
+                return a.index <= b.index ? a : b;
+            }
+        }
+
+        @SuppressWarnings("serial") // fork-join tasks are never serialized
+        private static class CandidateTask extends RecursiveTask<Candidate> {
+            private static final int SEQUENTIAL_THRESHOLD = 64;
+
+            private final Graph graph;
+            private final double viewRange;
+            private final int from, to;
+
+            CandidateTask(Graph graph, double viewRange, int from, int to) {
+                this.graph = graph;
+                this.viewRange = viewRange;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected Candidate compute() {
+                if (to - from <= SEQUENTIAL_THRESHOLD) {
+                    Candidate best = new Candidate(from, 0);
+                    for (int i = from; i < to; i++) {
+                        int coveredNodesCount = graph.countCoveredNodes(graph.nodes.get(i), viewRange);
+                        if (coveredNodesCount > best.coveredNodesCount) best = new Candidate(i, coveredNodesCount);
+                    }
+                    return best;
+                }
+
+                int mid = (from + to) >>> 1;
+                CandidateTask left = new CandidateTask(graph, viewRange, from, mid);
+                left.fork();
+                Candidate right = new CandidateTask(graph, viewRange, mid, to).compute();
+                return Candidate.better(left.join(), right);
+            }
+        }
+
         // Calculate Euclidean distance between two nodes
         static double distance(Node n1, Node n2) {
-            return Math.sqrt(Math.pow(n1.x - n2.x, 2) + Math.pow(n1.y - n2.y, 2) + Math.pow(n1.z - n2.z, 2));
+            return Math.sqrt(Geometry.distanceSquared(n1.x, n1.y, n1.z, n2.x, n2.y, n2.z));
+        }
+
+        // Graph over bulk-loaded sites, with the nodes in the order of the site arrays (for example
+        // after SiteArrays.sortAlongHilbertCurve)
+        static Graph fromSites(SiteArrays sites) {
+            Graph graph = new Graph();
+            for (int i = 0; i < sites.size(); i++) {
+                graph.addNode(new Node(sites.ids[i], sites.xs[i], sites.ys[i], sites.zs[i]));
+            }
+            return graph;
+        }
+
+        // Sites per block in the column-store scan; three blocks of coordinates stay in cache
+        private static final int COLUMN_BLOCK = 2048;
+
+        // Brute force over a column store such as an OffHeapSiteStore, without Node objects.
+        // Candidates and targets are copied block by block into heap arrays and counted with the
+        // batched kernel. Returns the position of the site covering the most sites (ties to the
+        // lowest position), or -1 for an empty store.
+        static int findOptimalSiteIndex(SiteColumns sites, double viewRange) {
+            int n = sites.size();
+            if (n == 0) return -1;
+
+            long start = PlacementMetrics.start();
+            double rangeSquared = viewRange * viewRange;
+            double[] candidateXs = new double[COLUMN_BLOCK], targetXs = new double[COLUMN_BLOCK];
+            double[] candidateYs = new double[COLUMN_BLOCK], targetYs = new double[COLUMN_BLOCK];
+            double[] candidateZs = new double[COLUMN_BLOCK], targetZs = new double[COLUMN_BLOCK];
+            int[] counts = new int[COLUMN_BLOCK];
+
+            int bestIndex = -1, maxCoveredNodes = 0;
+            for (int candidateFrom = 0; candidateFrom < n; candidateFrom += COLUMN_BLOCK) {
+                int candidates = Math.min(COLUMN_BLOCK, n - candidateFrom);
+                sites.copyCoordinates(candidateFrom, candidateFrom + candidates, candidateXs, candidateYs, candidateZs);
+                Arrays.fill(counts, 0);
+
+                for (int targetFrom = 0; targetFrom < n; targetFrom += COLUMN_BLOCK) {
+                    int targets = Math.min(COLUMN_BLOCK, n - targetFrom);
+                    sites.copyCoordinates(targetFrom, targetFrom + targets, targetXs, targetYs, targetZs);
+                    for (int c = 0; c < candidates; c++) {
+                        counts[c] += Geometry.countWithinRange(candidateXs[c], candidateYs[c], candidateZs[c],
+                                targetXs, targetYs, targetZs, 0, targets, rangeSquared);
+                    }
+                }
+
+                for (int c = 0; c < candidates; c++) {
+                    if (counts[c] > maxCoveredNodes) {
+                        maxCoveredNodes = counts[c];
+                        bestIndex = candidateFrom + c;
+                    }
+                }
+            }
+
+            if (PlacementMetrics.ENABLED) PlacementMetrics.DISTANCE_EVALUATIONS.add((long) n * n);
+            PlacementMetrics.record(PlacementMetrics.Phase.OPTIMAL_SEARCH, start);
+            return bestIndex;
         }
 
         // Latitude/Longitude to Cartesian conversion
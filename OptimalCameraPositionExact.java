@@ -0,0 +1,327 @@
+package DaaProject;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+public class OptimalCameraPositionExact {
+
+    static class Node {
+        int id;
+        double x, y, z;
+
+        Node(int id, double x, double y, double z) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    static class Graph {
+        // Relative slack on the view range so that nodes lying exactly on the boundary of the
+        // optimal ball, which is where the optimum sits, are not lost to rounding
+        static final double COVERAGE_TOLERANCE = 1e-9;
+
+        List<Node> nodes = new ArrayList<>();
+
+        void addNode(Node node) {
+            nodes.add(node);
+        }
+
+        // Calculate Euclidean distance between two nodes
+        static double distance(Node n1, Node n2) {
+            return Math.sqrt(Geometry.distanceSquared(n1.x, n1.y, n1.z, n2.x, n2.y, n2.z));
+        }
+
+        // Count the nodes within view range (plus the tolerance) of a position
+        static int countNodesInViewRange(double x, double y, double z, List<Node> nodes, double viewRange) {
+            double range = viewRange * (1 + COVERAGE_TOLERANCE);
+            double rangeSquared = range * range;
+            int count = 0;
+            for (Node node : nodes) {
+                if (Geometry.withinRange(x, y, z, node.x, node.y, node.z, rangeSquared)) count++;
+            }
+            return count;
+        }
+
+        // Exact: find the camera position anywhere in space that covers the most nodes.
+        //
+        // A ball of radius viewRange covering a maximal set can be slid until two covered nodes p
+        // and q lie on its boundary, which puts its centre on the circle where the spheres of radius
+        // viewRange around p and q meet. Every other node covers an arc of that circle, so one angular
+        // sweep over the sorted arc ends gives the best centre on the circle. Only pairs within
+        // 2 * viewRange of each other have such a circle, and only nodes within 2 * viewRange of p
+        // can cover any of it, so a grid with cells of that size supplies the pairs and the arcs.
+        Node findOptimalCameraPosition(double viewRange) {
+            if (nodes.isEmpty()) return null;
+
+            int n = nodes.size();
+            double[] xs = new double[n], ys = new double[n], zs = new double[n];
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                xs[i] = node.x;
+                ys[i] = node.y;
+                zs[i] = node.z;
+            }
+
+            double pairRange = 2 * viewRange * (1 + COVERAGE_TOLERANCE);
+            SpatialHashGrid grid = new SpatialHashGrid(xs, ys, zs, n, pairRange);
+
+            // Half the tolerance in the sweep leaves room for rounding in the final position
+            CircleSweep sweep = new CircleSweep(viewRange, viewRange * (1 + COVERAGE_TOLERANCE / 2));
+
+            // A camera on a node is always feasible and also covers isolated nodes
+            int bestCount = 0;
+            double bestX = 0, bestY = 0, bestZ = 0;
+            for (int i = 0; i < n; i++) {
+                int count = grid.rangeCount(xs[i], ys[i], zs[i], viewRange);
+                if (count > bestCount) {
+                    bestCount = count;
+                    bestX = xs[i];
+                    bestY = ys[i];
+                    bestZ = zs[i];
+                }
+            }
+
+            // Visit the nodes with the most pair partners first, so that the bound below starts
+            // pruning early. Keys pack (partner count, node) and are walked from the top.
+            long[] anchors = new long[n];
+            for (int i = 0; i < n; i++) {
+                anchors[i] = ((long) grid.rangeCount(xs[i], ys[i], zs[i], pairRange) << 32) | i;
+            }
+            Arrays.sort(anchors);
+
+            boolean[] swept = new boolean[n];
+            int[] neighbors = new int[16];
+            for (int a = n - 1; a >= 0; a--) {
+                int i = (int) anchors[a];
+                swept[i] = true;
+
+                // Upper bound: every ball through node i lies within the pair range of it
+                if ((int) (anchors[a] >>> 32) <= bestCount) break;
+
+                // Nodes that can share a ball with node i
+                int[] found = {0};
+                int[][] buffer = {neighbors};
+                int anchor = i;
+                grid.forEachInRange(xs[i], ys[i], zs[i], pairRange, j -> {
+                    if (j == anchor) return;
+                    if (found[0] == buffer[0].length) buffer[0] = Arrays.copyOf(buffer[0], found[0] * 2);
+                    buffer[0][found[0]++] = j;
+                });
+                neighbors = buffer[0];
+                int neighborCount = found[0];
+
+                for (int b = 0; b < neighborCount; b++) {
+                    int j = neighbors[b];
+                    if (swept[j]) continue; // each pair's circle only needs one sweep
+
+                    if (sweep.sweep(xs, ys, zs, i, j, neighbors, neighborCount, bestCount)) {
+                        bestCount = sweep.count;
+                        bestX = sweep.x;
+                        bestY = sweep.y;
+                        bestZ = sweep.z;
+                    }
+                }
+            }
+
+            return new Node(-1, bestX, bestY, bestZ);
+        }
+
+        // Angular sweep along the circle of centres whose balls pass through two given nodes
+        static class CircleSweep {
+            private final double range, rangeSquared, coverSquared;
+            private double[] starts = new double[16], ends = new double[16];
+
+            // Result of the last sweep
+            int count;
+            double x, y, z;
+
+            // Balls of the given range through the two nodes; other nodes count as covered up to
+            // coverRange, which is slightly larger
+            CircleSweep(double range, double coverRange) {
+                this.range = range;
+                this.rangeSquared = range * range;
+                this.coverSquared = coverRange * coverRange;
+            }
+
+            // Sweeps the circle for nodes i and j using the candidate nodes in neighbors (which may
+            // contain j but not i). Returns true if a centre covering more than countToBeat nodes was
+            // found; false if there is none, or the two nodes are too far apart or coincide.
+            boolean sweep(double[] xs, double[] ys, double[] zs, int i, int j,
+                          int[] neighbors, int neighborCount, int countToBeat) {
+                double ux = xs[j] - xs[i], uy = ys[j] - ys[i], uz = zs[j] - zs[i];
+                double d = Math.sqrt(ux * ux + uy * uy + uz * uz);
+                if (d > 2 * range || d < range * 1e-12) return false;
+                ux /= d;
+                uy /= d;
+                uz /= d;
+
+                // Circle centre, radius and an orthonormal basis (e1, e2) of its plane
+                double cx = (xs[i] + xs[j]) / 2, cy = (ys[i] + ys[j]) / 2, cz = (zs[i] + zs[j]) / 2;
+                double rho = Math.sqrt(Math.max(0, rangeSquared - d * d / 4));
+
+                // Only nodes within coverRange + rho of the circle centre can be covered from it
+                double reach = Math.sqrt(coverSquared) + rho;
+                double reachSquared = reach * reach;
+                int nearby = 0;
+                for (int a = 0; a < neighborCount; a++) {
+                    int q = neighbors[a];
+                    if (q != j && Geometry.withinRange(xs[q], ys[q], zs[q], cx, cy, cz, reachSquared)) nearby++;
+                }
+                if (2 + nearby <= countToBeat) return false;
+
+                double ax = Math.abs(ux), ay = Math.abs(uy), az = Math.abs(uz);
+                double e1x, e1y, e1z;
+                if (ax <= ay && ax <= az) {
+                    e1x = 0; e1y = uz; e1z = -uy;     // u x (1, 0, 0)
+                } else if (ay <= az) {
+                    e1x = -uz; e1y = 0; e1z = ux;     // u x (0, 1, 0)
+                } else {
+                    e1x = uy; e1y = -ux; e1z = 0;     // u x (0, 0, 1)
+                }
+                double e1Length = Math.sqrt(e1x * e1x + e1y * e1y + e1z * e1z);
+                e1x /= e1Length;
+                e1y /= e1Length;
+                e1z /= e1Length;
+                double e2x = uy * e1z - uz * e1y, e2y = uz * e1x - ux * e1z, e2z = ux * e1y - uy * e1x;
+
+                int always = 2; // nodes i and j lie on every ball centred on the circle
+                int wrapping = 0;
+                int arcs = 0;
+                if (starts.length < neighborCount) {
+                    starts = new double[neighborCount];
+                    ends = new double[neighborCount];
+                }
+
+                for (int a = 0; a < neighborCount; a++) {
+                    int q = neighbors[a];
+                    if (q == j) continue;
+
+                    double wx = xs[q] - cx, wy = ys[q] - cy, wz = zs[q] - cz;
+                    double wSquared = wx * wx + wy * wy + wz * wz;
+                    if (wSquared > reachSquared) continue;
+
+                    // |c + rho (cos t e1 + sin t e2) - q|^2 <= r^2  <=>  m cos(t - phi) >= k
+                    double p = wx * e1x + wy * e1y + wz * e1z;
+                    double s = wx * e2x + wy * e2y + wz * e2z;
+                    double m = Math.sqrt(p * p + s * s);
+                    if (rho == 0) {
+                        if (wSquared <= coverSquared) always++;
+                        continue;
+                    }
+                    double k = (rho * rho + wSquared - coverSquared) / (2 * rho);
+
+                    if (k <= -m) {
+                        always++;
+                    } else if (k <= m) {
+                        double halfWidth = Math.acos(k / m);
+                        double start = Math.atan2(s, p) - halfWidth;
+                        if (start < 0) start += 2 * Math.PI;
+                        double end = start + 2 * halfWidth;
+                        if (end >= 2 * Math.PI) {
+                            end -= 2 * Math.PI;
+                            wrapping++; // the arc covers angle 0
+                        }
+                        starts[arcs] = start;
+                        ends[arcs] = end;
+                        arcs++;
+                    }
+                }
+
+                Arrays.sort(starts, 0, arcs);
+                Arrays.sort(ends, 0, arcs);
+
+                // Closed arcs: at equal angles the start is processed before the end
+                int depth = wrapping, bestDepth = wrapping;
+                double bestAngle = 0;
+                for (int si = 0, ei = 0; si < arcs; ) {
+                    if (ei == arcs || starts[si] <= ends[ei]) {
+                        if (++depth > bestDepth) {
+                            bestDepth = depth;
+                            bestAngle = starts[si];
+                        }
+                        si++;
+                    } else {
+                        depth--;
+                        ei++;
+                    }
+                }
+
+                if (always + bestDepth <= countToBeat) return false;
+
+                double cos = Math.cos(bestAngle), sin = Math.sin(bestAngle);
+                count = always + bestDepth;
+                x = cx + rho * (cos * e1x + sin * e2x);
+                y = cy + rho * (cos * e1y + sin * e2y);
+                z = cz + rho * (cos * e1z + sin * e2z);
+                return true;
+            }
+        }
+
+        // Graph over bulk-loaded sites, with the nodes in the order of the site arrays (for example
+        // after SiteArrays.sortAlongHilbertCurve)
+        static Graph fromSites(SiteArrays sites) {
+            Graph graph = new Graph();
+            for (int i = 0; i < sites.size(); i++) {
+                graph.addNode(new Node(sites.ids[i], sites.xs[i], sites.ys[i], sites.zs[i]));
+            }
+            return graph;
+        }
+
+        // Latitude/Longitude to Cartesian conversion
+        static Node latLonToCartesian(int id, double lat, double lon) {
+            final double R = 6371; // Earth's radius in km
+            double x = R * Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(lon));
+            double y = R * Math.cos(Math.toRadians(lat)) * Math.sin(Math.toRadians(lon));
+            double z = R * Math.sin(Math.toRadians(lat));
+            return new Node(id, x, y, z);
+        }
+
+        static double[] cartesianToLatLon(double x, double y, double z) {
+            final double R = 6371; // Earth's radius in km
+            double lat = Math.toDegrees(Math.asin(z / R));
+            double lon = Math.toDegrees(Math.atan2(y, x));
+            return new double[]{lat, lon};
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Exact Camera Placement Started");
+
+        try (FileWriter csvWriter = new FileWriter("resultsExact.csv")) {
+            csvWriter.append("Node Size,Average Runtime (ms)\n");
+
+            Random random = new Random();
+
+            // Run the algorithm 100 times for different node sizes
+            for (int trial = 0; trial < 100; trial++) {
+                int size = random.nextInt(6) + 5; // Node size between 5 and 10
+                Graph graph = new Graph();
+
+                // Add random nodes with lat/lon coordinates
+                for (int i = 0; i < size; i++) {
+                    double lat = random.nextDouble() * 180 - 90; // Latitude between -90 and +90
+                    double lon = random.nextDouble() * 360 - 180; // Longitude between -180 and +180
+                    graph.addNode(Graph.latLonToCartesian(i + 1, lat, lon));
+                }
+
+                long startTime = System.nanoTime();
+                Node optimalNode = graph.findOptimalCameraPosition(10.0); // Example view range
+                long endTime = System.nanoTime();
+
+                double runtime = (endTime - startTime) / 1_000_000.0; // Runtime in milliseconds
+                int covered = Graph.countNodesInViewRange(optimalNode.x, optimalNode.y, optimalNode.z, graph.nodes, 10.0);
+
+                csvWriter.append(String.valueOf(size)).append(",").append(String.valueOf(runtime)).append("\n");
+                System.out.printf("Trial %d | Node Size: %d | Covered: %d | Runtime: %.2f ms%n", trial + 1, size, covered, runtime);
+            }
+
+            System.out.println("Exact runtime results saved to resultsExact.csv");
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -2,7 +2,16 @@ package DaaProject;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 public class OptimalCameraPositionKdTree {
 
@@ -18,83 +27,737 @@ public class OptimalCameraPositionKdTree {
         }
     }
 
+    // Array-backed k-d tree. Points are stored in build order in flat primitive arrays and the
+    // subtree rooted at slot mid = (lo + hi) >>> 1 has its children in [lo, mid) and [mid + 1, hi),
+    // so there are no per-node objects or child pointers to chase.
     static class KDTree {
-        Node node;
-        KDTree left, right;
-        int depth;
+        final int size;
+        final double[] xs, ys, zs;
+        final int[] ids;
+        final int[] order; // index of each slot's node in the source list
 
-        public KDTree(List<Node> nodes, int depth) {
-            if (nodes.isEmpty()) return;
+        // Subtrees at least this large are built as separate fork-join tasks
+        static final int PARALLEL_BUILD_THRESHOLD = 1 << 14;
 
-            this.depth = depth;
-            int axis = depth % 3;
+        public KDTree(List<Node> nodes) {
+            this(nodes, false);
+        }
+
+        // The caller's list is copied into the flat arrays and never reordered
+        public KDTree(List<Node> nodes, boolean parallel) {
+            this(nodes.size());
+            long start = PlacementMetrics.start();
+
+            for (int i = 0; i < size; i++) {
+                Node node = nodes.get(i);
+                xs[i] = node.x;
+                ys[i] = node.y;
+                zs[i] = node.z;
+                ids[i] = node.id;
+                order[i] = i;
+            }
+
+            buildTree(parallel);
+            PlacementMetrics.record(PlacementMetrics.Phase.TREE_BUILD, start);
+        }
+
+        // Tree over a column store such as an OffHeapSiteStore, copied straight into the flat heap
+        // arrays without creating Node objects; order holds positions in the store
+        public KDTree(SiteColumns sites, boolean parallel) {
+            this(sites.size());
+            long start = PlacementMetrics.start();
+
+            sites.copyCoordinates(0, size, xs, ys, zs);
+            for (int i = 0; i < size; i++) {
+                ids[i] = sites.id(i);
+                order[i] = i;
+            }
+
+            buildTree(parallel);
+            PlacementMetrics.record(PlacementMetrics.Phase.TREE_BUILD, start);
+        }
+
+        private KDTree(int size) {
+            this.size = size;
+            xs = new double[size];
+            ys = new double[size];
+            zs = new double[size];
+            ids = new int[size];
+            order = new int[size];
+        }
+
+        private void buildTree(boolean parallel) {
+            if (parallel && size >= PARALLEL_BUILD_THRESHOLD) {
+                ForkJoinPool.commonPool().invoke(new BuildTask(this, 0, size, 0));
+            } else {
+                build(0, size, 0);
+            }
+        }
+
+        // Linear-time median selection per level gives an O(n log n) build overall
+        private void build(int lo, int hi, int depth) {
+            while (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                select(lo, hi, mid, depth % 3);
+
+                build(lo, mid, depth + 1);
+                lo = mid + 1;
+                depth++;
+            }
+        }
+
+        @SuppressWarnings("serial") // fork-join tasks are never serialized
+        private static class BuildTask extends RecursiveAction {
+            private final KDTree tree;
+            private final int lo, hi, depth;
+
+            BuildTask(KDTree tree, int lo, int hi, int depth) {
+                this.tree = tree;
+                this.lo = lo;
+                this.hi = hi;
+                this.depth = depth;
+            }
+
+            @Override
+            protected void compute() {
+                if (hi - lo < PARALLEL_BUILD_THRESHOLD) {
+                    tree.build(lo, hi, depth);
+                    return;
+                }
+
+                int mid = (lo + hi) >>> 1;
+                tree.select(lo, hi, mid, depth % 3);
+
+                // The two halves touch disjoint slots, so they can be built concurrently
+                invokeAll(new BuildTask(tree, lo, mid, depth + 1),
+                        new BuildTask(tree, mid + 1, hi, depth + 1));
+            }
+        }
+
+        // Quickselect: afterwards slot k holds the k-th smallest key on the axis within [lo, hi),
+        // with no larger keys before it and no smaller keys after it
+        private void select(int lo, int hi, int k, int axis) {
+            double[] keys = axis == 0 ? xs : axis == 1 ? ys : zs;
+            int left = lo, right = hi - 1;
+
+            while (right > left) {
+                double pivot = medianOfThree(keys[left], keys[(left + right) >>> 1], keys[right]);
+                int i = left, j = right;
 
-            // Sort nodes based on the current axis
-            nodes.sort(Comparator.comparingDouble(n -> axis == 0 ? n.x : axis == 1 ? n.y : n.z));
-            int medianIndex = nodes.size() / 2;
-            node = nodes.get(medianIndex);
+                while (i <= j) {
+                    while (keys[i] < pivot) i++;
+                    while (keys[j] > pivot) j--;
+                    if (i <= j) swap(i++, j--);
+                }
 
-            // Split nodes into left and right sublists
-            List<Node> leftNodes = nodes.subList(0, medianIndex);
-            List<Node> rightNodes = nodes.subList(medianIndex + 1, nodes.size());
+                // [left, j] <= pivot, [i, right] >= pivot and anything in between equals the pivot
+                if (k <= j) right = j;
+                else if (k >= i) left = i;
+                else return;
+            }
+        }
+
+        private static double medianOfThree(double a, double b, double c) {
+            return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+        }
 
-            if (!leftNodes.isEmpty()) this.left = new KDTree(leftNodes, depth + 1);
-            if (!rightNodes.isEmpty()) this.right = new KDTree(rightNodes, depth + 1);
+        private void swap(int i, int j) {
+            double x = xs[i]; xs[i] = xs[j]; xs[j] = x;
+            double y = ys[i]; ys[i] = ys[j]; ys[j] = y;
+            double z = zs[i]; zs[i] = zs[j]; zs[j] = z;
+            int id = ids[i]; ids[i] = ids[j]; ids[j] = id;
+            int index = order[i]; order[i] = order[j]; order[j] = index;
         }
 
-        // Method to count nodes within a certain view range
+        // Method to collect the ids of nodes within a certain view range
         public List<Integer> rangeQuery(Node target, double viewRange) {
+            long start = PlacementMetrics.sampledStart();
             List<Integer> result = new ArrayList<>();
-            rangeQueryHelper(target, viewRange, result);
+            rangeQueryHelper(0, size, 0, target, viewRange * viewRange, result);
+            PlacementMetrics.record(PlacementMetrics.Phase.RANGE_QUERY, start);
             return result;
         }
 
-        private void rangeQueryHelper(Node target, double viewRange, List<Integer> result) {
-            if (node == null) return;
+        // Count-only range query: no allocation, for callers that only need the coverage count
+        public int rangeCount(Node target, double viewRange) {
+            return rangeCount(target.x, target.y, target.z, viewRange);
+        }
+
+        public int rangeCount(double x, double y, double z, double viewRange) {
+            long start = PlacementMetrics.sampledStart();
+            int count = rangeCountHelper(0, size, 0, x, y, z, viewRange * viewRange);
+            PlacementMetrics.record(PlacementMetrics.Phase.RANGE_QUERY, start);
+            return count;
+        }
+
+        private void rangeQueryHelper(int lo, int hi, int depth, Node target, double rangeSquared, List<Integer> result) {
+            if (lo >= hi) return;
 
-            double distance = Graph.distance(node, target);
-            if (distance <= viewRange) {
-                result.add(node.id);
+            int mid = (lo + hi) >>> 1;
+            if (PlacementMetrics.ENABLED) {
+                PlacementMetrics.NODES_VISITED.increment();
+                PlacementMetrics.DISTANCE_EVALUATIONS.increment();
+            }
+            double dx = target.x - xs[mid];
+            double dy = target.y - ys[mid];
+            double dz = target.z - zs[mid];
+            if (dx * dx + dy * dy + dz * dz <= rangeSquared) {
+                result.add(ids[mid]);
             }
 
             int axis = depth % 3;
-            double delta = axis == 0 ? target.x - node.x : axis == 1 ? target.y - node.y : target.z - node.z;
-            double deltaSquared = delta * delta;
+            double delta = axis == 0 ? dx : axis == 1 ? dy : dz;
 
             if (delta < 0) {
-                if (left != null) left.rangeQueryHelper(target, viewRange, result);
-                if (right != null && deltaSquared <= viewRange * viewRange) right.rangeQueryHelper(target, viewRange, result);
+                rangeQueryHelper(lo, mid, depth + 1, target, rangeSquared, result);
+                if (delta * delta <= rangeSquared) rangeQueryHelper(mid + 1, hi, depth + 1, target, rangeSquared, result);
+                else if (PlacementMetrics.ENABLED && mid + 1 < hi) PlacementMetrics.SUBTREES_PRUNED.increment();
             } else {
-                if (right != null) right.rangeQueryHelper(target, viewRange, result);
-                if (left != null && deltaSquared <= viewRange * viewRange) left.rangeQueryHelper(target, viewRange, result);
+                rangeQueryHelper(mid + 1, hi, depth + 1, target, rangeSquared, result);
+                if (delta * delta <= rangeSquared) rangeQueryHelper(lo, mid, depth + 1, target, rangeSquared, result);
+                else if (PlacementMetrics.ENABLED && lo < mid) PlacementMetrics.SUBTREES_PRUNED.increment();
+            }
+        }
+
+        private int rangeCountHelper(int lo, int hi, int depth, double x, double y, double z, double rangeSquared) {
+            if (lo >= hi) return 0;
+
+            int mid = (lo + hi) >>> 1;
+            if (PlacementMetrics.ENABLED) {
+                PlacementMetrics.NODES_VISITED.increment();
+                PlacementMetrics.DISTANCE_EVALUATIONS.increment();
             }
+            double dx = x - xs[mid];
+            double dy = y - ys[mid];
+            double dz = z - zs[mid];
+            int count = dx * dx + dy * dy + dz * dz <= rangeSquared ? 1 : 0;
+
+            int axis = depth % 3;
+            double delta = axis == 0 ? dx : axis == 1 ? dy : dz;
+
+            if (delta < 0) {
+                count += rangeCountHelper(lo, mid, depth + 1, x, y, z, rangeSquared);
+                if (delta * delta <= rangeSquared) count += rangeCountHelper(mid + 1, hi, depth + 1, x, y, z, rangeSquared);
+                else if (PlacementMetrics.ENABLED && mid + 1 < hi) PlacementMetrics.SUBTREES_PRUNED.increment();
+            } else {
+                count += rangeCountHelper(mid + 1, hi, depth + 1, x, y, z, rangeSquared);
+                if (delta * delta <= rangeSquared) count += rangeCountHelper(lo, mid, depth + 1, x, y, z, rangeSquared);
+                else if (PlacementMetrics.ENABLED && lo < mid) PlacementMetrics.SUBTREES_PRUNED.increment();
+            }
+            return count;
+        }
+
+        // Pairs of subtrees at most this large are compared point by point
+        private static final int DUAL_LEAF_SIZE = 32;
+
+        // Bounding box of every subtree, stored at its mid slot as boxMin[axis] and boxMax[axis];
+        // built on the first all-points count. One column per axis and bound keeps every array
+        // the length of the tree.
+        private double[][] boxMin, boxMax;
+
+        // Range count of every point in one dual-tree pass, indexed like the source list. The tree is
+        // traversed against itself: pairs of subtrees whose boxes are entirely beyond the view range
+        // are skipped, and when every point of one box is within range of every point of the other
+        // the whole query subtree is credited at once through a pending count at its root, which is
+        // pushed down to the points at the end. Counts match rangeCount for each point.
+        public int[] allRangeCounts(double viewRange) {
+            long start = PlacementMetrics.start();
+            int[] slotCounts = new int[size];
+            if (size > 0) {
+                ensureBoxes();
+                int[] pending = new int[size];
+                dualCount(0, size, 0, 0, size, 0, viewRange * viewRange, slotCounts, pending);
+                pushDown(0, size, 0, slotCounts, pending);
+            }
+
+            int[] counts = new int[size];
+            for (int slot = 0; slot < size; slot++) counts[order[slot]] = slotCounts[slot];
+            PlacementMetrics.record(PlacementMetrics.Phase.ALL_RANGE_COUNTS, start);
+            return counts;
+        }
+
+        private synchronized void ensureBoxes() {
+            if (boxMin != null) return;
+            double[][] newMin = new double[3][size], newMax = new double[3][size];
+            computeBox(0, size, newMin, newMax);
+            boxMax = newMax;
+            boxMin = newMin;
+        }
+
+        private void computeBox(int lo, int hi, double[][] min, double[][] max) {
+            int mid = (lo + hi) >>> 1;
+            min[0][mid] = max[0][mid] = xs[mid];
+            min[1][mid] = max[1][mid] = ys[mid];
+            min[2][mid] = max[2][mid] = zs[mid];
+
+            if (lo < mid) includeBox(mid, computeChild(lo, mid, min, max), min, max);
+            if (mid + 1 < hi) includeBox(mid, computeChild(mid + 1, hi, min, max), min, max);
+        }
+
+        private int computeChild(int lo, int hi, double[][] min, double[][] max) {
+            computeBox(lo, hi, min, max);
+            return (lo + hi) >>> 1;
+        }
+
+        private static void includeBox(int slot, int child, double[][] min, double[][] max) {
+            for (int axis = 0; axis < 3; axis++) {
+                min[axis][slot] = Math.min(min[axis][slot], min[axis][child]);
+                max[axis][slot] = Math.max(max[axis][slot], max[axis][child]);
+            }
+        }
+
+        // Adds to the count of every point of query subtree [qlo, qhi) the number of points of
+        // reference subtree [rlo, rhi) within range of it
+        private void dualCount(int qlo, int qhi, int qDepth, int rlo, int rhi, int rDepth, double rangeSquared,
+                               int[] counts, int[] pending) {
+            int q = (qlo + qhi) >>> 1, r = (rlo + rhi) >>> 1;
+            double minSquared = 0, maxSquared = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                double[] min = boxMin[axis], max = boxMax[axis];
+                double gap = Math.max(0, Math.max(min[q] - max[r], min[r] - max[q]));
+                double span = Math.max(max[q] - min[r], max[r] - min[q]);
+                minSquared += gap * gap;
+                maxSquared += span * span;
+            }
+
+            if (minSquared > rangeSquared) {
+                if (PlacementMetrics.ENABLED) PlacementMetrics.SUBTREES_PRUNED.increment();
+                return;
+            }
+            if (maxSquared <= rangeSquared) {
+                pending[q] += rhi - rlo;
+                return;
+            }
+
+            int querySize = qhi - qlo, referenceSize = rhi - rlo;
+            if (querySize <= DUAL_LEAF_SIZE && referenceSize <= DUAL_LEAF_SIZE) {
+                if (PlacementMetrics.ENABLED) PlacementMetrics.DISTANCE_EVALUATIONS.add((long) querySize * referenceSize);
+                for (int slot = qlo; slot < qhi; slot++) {
+                    counts[slot] += Geometry.countWithinRange(xs[slot], ys[slot], zs[slot], xs, ys, zs, rlo, rhi, rangeSquared);
+                }
+                return;
+            }
+
+            // Split the larger side into its two children and its mid point
+            if (querySize >= referenceSize) {
+                int mid = (qlo + qhi) >>> 1;
+                counts[mid] += rangeCountHelper(rlo, rhi, rDepth, xs[mid], ys[mid], zs[mid], rangeSquared);
+                if (qlo < mid) dualCount(qlo, mid, qDepth + 1, rlo, rhi, rDepth, rangeSquared, counts, pending);
+                if (mid + 1 < qhi) dualCount(mid + 1, qhi, qDepth + 1, rlo, rhi, rDepth, rangeSquared, counts, pending);
+            } else {
+                int mid = (rlo + rhi) >>> 1;
+                creditInRange(qlo, qhi, qDepth, xs[mid], ys[mid], zs[mid], rangeSquared, counts);
+                if (rlo < mid) dualCount(qlo, qhi, qDepth, rlo, mid, rDepth + 1, rangeSquared, counts, pending);
+                if (mid + 1 < rhi) dualCount(qlo, qhi, qDepth, mid + 1, rhi, rDepth + 1, rangeSquared, counts, pending);
+            }
+        }
+
+        // Adds one to the count of every point of subtree [lo, hi) within range of (x, y, z)
+        private void creditInRange(int lo, int hi, int depth, double x, double y, double z, double rangeSquared,
+                                   int[] counts) {
+            if (lo >= hi) return;
+
+            int mid = (lo + hi) >>> 1;
+            double dx = x - xs[mid];
+            double dy = y - ys[mid];
+            double dz = z - zs[mid];
+            if (dx * dx + dy * dy + dz * dz <= rangeSquared) counts[mid]++;
+
+            int axis = depth % 3;
+            double delta = axis == 0 ? dx : axis == 1 ? dy : dz;
+
+            if (delta < 0) {
+                creditInRange(lo, mid, depth + 1, x, y, z, rangeSquared, counts);
+                if (delta * delta <= rangeSquared) creditInRange(mid + 1, hi, depth + 1, x, y, z, rangeSquared, counts);
+            } else {
+                creditInRange(mid + 1, hi, depth + 1, x, y, z, rangeSquared, counts);
+                if (delta * delta <= rangeSquared) creditInRange(lo, mid, depth + 1, x, y, z, rangeSquared, counts);
+            }
+        }
+
+        // Adds every pending subtree count to each point below it
+        private static void pushDown(int lo, int hi, int inherited, int[] counts, int[] pending) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int total = inherited + pending[mid];
+                counts[mid] += total;
+                pushDown(lo, mid, total, counts, pending);
+                lo = mid + 1;
+                inherited = total;
+            }
+        }
+
+        // Write the flattened tree to an index file that MappedKDTree can query in place
+        public void save(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MappedKDTree.MAGIC).putInt(MappedKDTree.VERSION).putLong(size).putLong(0).putLong(0);
+
+                for (double[] column : new double[][]{xs, ys, zs}) {
+                    for (int i = 0; i < size; i++) {
+                        if (buffer.remaining() < Double.BYTES) drain(channel, buffer);
+                        buffer.putDouble(column[i]);
+                    }
+                }
+                for (int[] column : new int[][]{ids, order}) {
+                    for (int i = 0; i < size; i++) {
+                        if (buffer.remaining() < Integer.BYTES) drain(channel, buffer);
+                        buffer.putInt(column[i]);
+                    }
+                }
+                writeAxes(channel, buffer);
+                drain(channel, buffer);
+            }
+        }
+
+        // Split axis of every slot, written in slot order
+        private void writeAxes(FileChannel channel, ByteBuffer buffer) throws IOException {
+            byte[] axes = new byte[size];
+            int[] stack = new int[3 * 64];
+            int top = 0;
+            stack[top++] = 0;
+            stack[top++] = size;
+            stack[top++] = 0;
+            while (top > 0) {
+                int d = stack[--top], h = stack[--top], l = stack[--top];
+                if (l >= h) continue;
+                int mid = (l + h) >>> 1;
+                axes[mid] = (byte) (d % 3);
+                stack[top++] = l;
+                stack[top++] = mid;
+                stack[top++] = d + 1;
+                stack[top++] = mid + 1;
+                stack[top++] = h;
+                stack[top++] = d + 1;
+            }
+            for (byte axis : axes) {
+                if (!buffer.hasRemaining()) drain(channel, buffer);
+                buffer.put(axis);
+            }
+        }
+
+        private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
         }
     }
 
+    // Read-only k-d tree backed by a memory-mapped index file written by KDTree.save. Queries read
+    // coordinates straight from the mapping, so opening a file costs nothing beyond the mmap call
+    // and pages are faulted in on demand.
+    //
+    // File layout (little-endian): int magic, int version, long size, 16 reserved bytes, then the
+    // columns xs, ys, zs (double), ids, order (int) and axes (byte), each holding size entries in
+    // slot order. Columns are split into mappings of at most 2^27 entries because a single
+    // MappedByteBuffer cannot exceed 2 GB.
+    static class MappedKDTree implements AutoCloseable {
+        static final int MAGIC = 0x4B445452; // "KDTR"
+        static final int VERSION = 1;
+        static final int HEADER_BYTES = 32;
+
+        private static final int SEGMENT_SHIFT = 27;
+        private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+        final int size;
+        private final FileChannel channel;
+        private final MappedByteBuffer[] xs, ys, zs, ids, order, axes;
+
+        private MappedKDTree(FileChannel channel, int size) throws IOException {
+            this.channel = channel;
+            this.size = size;
+
+            long offset = HEADER_BYTES;
+            xs = mapColumn(offset, Double.BYTES);
+            offset += (long) size * Double.BYTES;
+            ys = mapColumn(offset, Double.BYTES);
+            offset += (long) size * Double.BYTES;
+            zs = mapColumn(offset, Double.BYTES);
+            offset += (long) size * Double.BYTES;
+            ids = mapColumn(offset, Integer.BYTES);
+            offset += (long) size * Integer.BYTES;
+            order = mapColumn(offset, Integer.BYTES);
+            offset += (long) size * Integer.BYTES;
+            axes = mapColumn(offset, Byte.BYTES);
+        }
+
+        public static MappedKDTree open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                while (header.hasRemaining() && channel.read(header) != -1) ;
+                header.flip();
+
+                if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                    throw new IOException("Not a k-d tree index file: " + path);
+                }
+                if (header.getInt(4) != VERSION) {
+                    throw new IOException("Unsupported k-d tree index version: " + header.getInt(4));
+                }
+
+                long size = header.getLong(8);
+                if (size < 0 || size > Integer.MAX_VALUE) throw new IOException("Invalid tree size: " + size);
+                if (channel.size() < HEADER_BYTES + size * (3 * Double.BYTES + 2 * Integer.BYTES + 1)) {
+                    throw new IOException("Truncated k-d tree index file: " + path);
+                }
+                return new MappedKDTree(channel, (int) size);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private MappedByteBuffer[] mapColumn(long offset, int width) throws IOException {
+            int segments = (int) (((long) size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] column = new MappedByteBuffer[Math.max(1, segments)];
+            for (int s = 0; s < column.length; s++) {
+                long first = (long) s << SEGMENT_SHIFT;
+                long entries = Math.min(size - first, 1L << SEGMENT_SHIFT);
+                column[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * width, Math.max(0, entries) * width);
+                column[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return column;
+        }
+
+        double x(int slot) {
+            return xs[slot >>> SEGMENT_SHIFT].getDouble((slot & SEGMENT_MASK) << 3);
+        }
+
+        double y(int slot) {
+            return ys[slot >>> SEGMENT_SHIFT].getDouble((slot & SEGMENT_MASK) << 3);
+        }
+
+        double z(int slot) {
+            return zs[slot >>> SEGMENT_SHIFT].getDouble((slot & SEGMENT_MASK) << 3);
+        }
+
+        int id(int slot) {
+            return ids[slot >>> SEGMENT_SHIFT].getInt((slot & SEGMENT_MASK) << 2);
+        }
+
+        // Index of the slot's node in the list the tree was built from
+        int sourceIndex(int slot) {
+            return order[slot >>> SEGMENT_SHIFT].getInt((slot & SEGMENT_MASK) << 2);
+        }
+
+        private int axis(int slot) {
+            return axes[slot >>> SEGMENT_SHIFT].get(slot & SEGMENT_MASK);
+        }
+
+        public List<Integer> rangeQuery(Node target, double viewRange) {
+            List<Integer> result = new ArrayList<>();
+            rangeQueryHelper(0, size, target.x, target.y, target.z, viewRange * viewRange, result);
+            return result;
+        }
+
+        public int rangeCount(Node target, double viewRange) {
+            return rangeCount(target.x, target.y, target.z, viewRange);
+        }
+
+        public int rangeCount(double x, double y, double z, double viewRange) {
+            return rangeCountHelper(0, size, x, y, z, viewRange * viewRange);
+        }
+
+        // Same answer as Graph.findOptimalCameraPosition on the source list: the most covered
+        // site, with ties going to the site that came first in that list
+        int findOptimalSiteId(double viewRange) {
+            int bestSlot = -1, bestCount = 0;
+            for (int slot = 0; slot < size; slot++) {
+                int count = rangeCount(x(slot), y(slot), z(slot), viewRange);
+                if (count > bestCount || (count == bestCount && bestSlot >= 0 && sourceIndex(slot) < sourceIndex(bestSlot))) {
+                    bestCount = count;
+                    bestSlot = slot;
+                }
+            }
+            return bestSlot < 0 ? -1 : id(bestSlot);
+        }
+
+        private void rangeQueryHelper(int lo, int hi, double x, double y, double z, double rangeSquared, List<Integer> result) {
+            if (lo >= hi) return;
+
+            int mid = (lo + hi) >>> 1;
+            double dx = x - x(mid);
+            double dy = y - y(mid);
+            double dz = z - z(mid);
+            if (dx * dx + dy * dy + dz * dz <= rangeSquared) {
+                result.add(id(mid));
+            }
+
+            int axis = axis(mid);
+            double delta = axis == 0 ? dx : axis == 1 ? dy : dz;
+
+            if (delta < 0) {
+                rangeQueryHelper(lo, mid, x, y, z, rangeSquared, result);
+                if (delta * delta <= rangeSquared) rangeQueryHelper(mid + 1, hi, x, y, z, rangeSquared, result);
+            } else {
+                rangeQueryHelper(mid + 1, hi, x, y, z, rangeSquared, result);
+                if (delta * delta <= rangeSquared) rangeQueryHelper(lo, mid, x, y, z, rangeSquared, result);
+            }
+        }
+
+        private int rangeCountHelper(int lo, int hi, double x, double y, double z, double rangeSquared) {
+            if (lo >= hi) return 0;
+
+            int mid = (lo + hi) >>> 1;
+            double dx = x - x(mid);
+            double dy = y - y(mid);
+            double dz = z - z(mid);
+            int count = dx * dx + dy * dy + dz * dz <= rangeSquared ? 1 : 0;
+
+            int axis = axis(mid);
+            double delta = axis == 0 ? dx : axis == 1 ? dy : dz;
+
+            if (delta < 0) {
+                count += rangeCountHelper(lo, mid, x, y, z, rangeSquared);
+                if (delta * delta <= rangeSquared) count += rangeCountHelper(mid + 1, hi, x, y, z, rangeSquared);
+            } else {
+                count += rangeCountHelper(mid + 1, hi, x, y, z, rangeSquared);
+                if (delta * delta <= rangeSquared) count += rangeCountHelper(lo, mid, x, y, z, rangeSquared);
+            }
+            return count;
+        }
+
+        // The mappings stay valid until they are garbage collected; closing releases the file handle
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Spatial index used to answer the per-candidate range counts
+    enum IndexType {
+        KD_TREE,
+        SPATIAL_HASH
+    }
+
     static class Graph {
         List<Node> nodes = new ArrayList<>();
         KDTree kdTree;
+        SpatialHashGrid grid;
+
+        // Incrementally maintained coverage counts, present once enableDynamicUpdates is called
+        DynamicSiteIndex dynamicIndex;
+        private Map<Integer, Integer> positions; // index of each node in nodes, once ids are edited
 
         void addNode(Node node) {
             nodes.add(node);
+            if (positions != null) positions.put(node.id, nodes.size() - 1);
+        }
+
+        // From now on keep per-site coverage counts for the view range up to date as sites are
+        // inserted and removed
+        void enableDynamicUpdates(double viewRange) {
+            positions();
+            dynamicIndex = new DynamicSiteIndex(viewRange);
+            for (Node node : nodes) dynamicIndex.insert(node.id, node.x, node.y, node.z);
+        }
+
+        // Add a site to a graph that is already being queried. The dynamic index is updated in
+        // place; the k-d tree and grid are dropped and rebuilt on their next use.
+        void insertNode(Node node) {
+            if (positions().containsKey(node.id)) throw new IllegalArgumentException("Duplicate site id: " + node.id);
+
+            nodes.add(node);
+            positions.put(node.id, nodes.size() - 1);
+            kdTree = null;
+            grid = null;
+            if (dynamicIndex != null) dynamicIndex.insert(node.id, node.x, node.y, node.z);
+        }
+
+        // The last node is moved into the freed slot, so node order (and with it tie-breaks
+        // between equally good positions) changes after a removal
+        void removeNode(int id) {
+            Integer position = positions().remove(id);
+            if (position == null) throw new IllegalArgumentException("Unknown site id: " + id);
+
+            Node last = nodes.remove(nodes.size() - 1);
+            if (last.id != id) {
+                nodes.set(position, last);
+                positions.put(last.id, position);
+            }
+            kdTree = null;
+            grid = null;
+            if (dynamicIndex != null) dynamicIndex.remove(id);
+        }
+
+        // Id to index map over nodes, built on the first id-based edit and kept up to date after it
+        private Map<Integer, Integer> positions() {
+            if (positions != null) return positions;
+
+            Map<Integer, Integer> built = new HashMap<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                if (built.put(nodes.get(i).id, i) != null) {
+                    throw new IllegalArgumentException("Duplicate site id: " + nodes.get(i).id);
+                }
+            }
+            positions = built;
+            return positions;
+        }
+
+        // The node findOptimalCameraPosition would return for the dynamic view range, read from
+        // the maintained counts without recounting any candidate
+        Node currentOptimalCameraPosition() {
+            if (dynamicIndex == null) throw new IllegalStateException("Dynamic updates are not enabled");
+            Integer position = positions.get(dynamicIndex.optimalSiteId());
+            return position == null ? null : nodes.get(position);
         }
 
         // Build k-d tree for the nodes
         void buildKDTree() {
-            kdTree = new KDTree(nodes, 0);
+            kdTree = new KDTree(nodes);
+        }
+
+        // Build the k-d tree with its large subtrees split across the common fork-join pool
+        void buildKDTreeParallel() {
+            kdTree = new KDTree(nodes, true);
+        }
+
+        // Build a uniform grid with cells as wide as the view range, so each query scans 27 cells
+        void buildSpatialHashGrid(double viewRange) {
+            int n = nodes.size();
+            double[] xs = new double[n], ys = new double[n], zs = new double[n];
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                xs[i] = node.x;
+                ys[i] = node.y;
+                zs[i] = node.z;
+            }
+            grid = new SpatialHashGrid(xs, ys, zs, n, viewRange);
+        }
+
+        // The grid is (re)built on demand for the requested range, the k-d tree only if it was dropped
+        private void prepareIndex(IndexType indexType, double viewRange) {
+            if (indexType == IndexType.SPATIAL_HASH && (grid == null || grid.cellSize != viewRange)) {
+                buildSpatialHashGrid(viewRange);
+            } else if (indexType == IndexType.KD_TREE && kdTree == null) {
+                buildKDTree();
+            }
+        }
+
+        int countCoveredNodes(Node candidateNode, double viewRange, IndexType indexType) {
+            return indexType == IndexType.SPATIAL_HASH
+                    ? grid.rangeCount(candidateNode.x, candidateNode.y, candidateNode.z, viewRange)
+                    : kdTree.rangeCount(candidateNode, viewRange);
         }
 
         // Optimized: Find the optimal camera position using the node positions only
         Node findOptimalCameraPosition(double viewRange) {
+            return findOptimalCameraPosition(viewRange, IndexType.KD_TREE);
+        }
+
+        Node findOptimalCameraPosition(double viewRange, IndexType indexType) {
             if (nodes.isEmpty()) return null;
 
+            long start = PlacementMetrics.start();
+            prepareIndex(indexType, viewRange);
+
             Node optimalNode = null;
             int maxCoveredNodes = 0;
 
             // Check each node as a candidate for camera placement
             for (Node candidateNode : nodes) {
-                List<Integer> visibleNodeIds = kdTree.rangeQuery(candidateNode, viewRange);
-                int coveredNodesCount = visibleNodeIds.size();
+                int coveredNodesCount = countCoveredNodes(candidateNode, viewRange, indexType);
 
                 // Update the optimal node based on coverage
                 if (coveredNodesCount > maxCoveredNodes) {
@@ -103,12 +766,205 @@ public class OptimalCameraPositionKdTree {
                 }
             }
 
+            PlacementMetrics.record(PlacementMetrics.Phase.OPTIMAL_SEARCH, start);
+            return optimalNode;
+        }
+
+        // Coverage count of every node, in list order, from one dual-tree pass over the k-d tree
+        int[] countAllCoveredNodes(double viewRange) {
+            prepareIndex(IndexType.KD_TREE, viewRange);
+            return kdTree.allRangeCounts(viewRange);
+        }
+
+        // Same node as findOptimalCameraPosition, with all the counts taken in one dual-tree pass
+        Node findOptimalCameraPositionDualTree(double viewRange) {
+            if (nodes.isEmpty()) return null;
+
+            long start = PlacementMetrics.start();
+            int[] counts = countAllCoveredNodes(viewRange);
+
+            Node optimalNode = null;
+            int maxCoveredNodes = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > maxCoveredNodes) {
+                    maxCoveredNodes = counts[i];
+                    optimalNode = nodes.get(i);
+                }
+            }
+
+            PlacementMetrics.record(PlacementMetrics.Phase.OPTIMAL_SEARCH, start);
             return optimalNode;
         }
 
+        // Budgeted max coverage: greedily pick up to k node positions, each covering the most nodes
+        // not yet covered by the earlier picks. Every candidate's uncovered count is kept exact:
+        // when a node becomes covered only the candidates within view range of it are decremented,
+        // so the total update work is bounded by the sum of all neighbourhood sizes. Candidates
+        // wait in a max-heap and are re-queued lazily when their count has dropped. Ties go to the
+        // earlier node; fewer than k positions are returned once every node is covered.
+        List<Node> findTopKCameraPositions(double viewRange, int k) {
+            List<Node> cameras = new ArrayList<>();
+            if (nodes.isEmpty() || k <= 0) return cameras;
+
+            prepareIndex(IndexType.SPATIAL_HASH, viewRange);
+            int n = nodes.size();
+            boolean[] covered = new boolean[n];
+            int[] uncoveredInRange = new int[n];
+            LongMaxHeap heap = new LongMaxHeap(n);
+
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                uncoveredInRange[i] = grid.rangeCount(node.x, node.y, node.z, viewRange);
+                heap.push(LongMaxHeap.entry(uncoveredInRange[i], i));
+            }
+
+            while (cameras.size() < k && !heap.isEmpty()) {
+                long top = heap.pop();
+                int candidate = LongMaxHeap.node(top);
+
+                if (LongMaxHeap.gain(top) != uncoveredInRange[candidate]) {
+                    heap.push(LongMaxHeap.entry(uncoveredInRange[candidate], candidate));
+                    continue;
+                }
+                if (uncoveredInRange[candidate] == 0) break;
+
+                Node camera = nodes.get(candidate);
+                cameras.add(camera);
+                grid.forEachInRange(camera.x, camera.y, camera.z, viewRange, target -> {
+                    if (covered[target]) return;
+
+                    covered[target] = true;
+                    Node targetNode = nodes.get(target);
+                    grid.forEachInRange(targetNode.x, targetNode.y, targetNode.z, viewRange,
+                            other -> uncoveredInRange[other]--);
+                });
+            }
+
+            return cameras;
+        }
+
+        // Parallel variant on the common fork-join pool
+        Node findOptimalCameraPositionParallel(double viewRange) {
+            return findOptimalCameraPositionParallel(viewRange, ForkJoinPool.commonPool());
+        }
+
+        // Candidates are split across the pool and the per-task winners merged. Ties go to the
+        // earlier node, so the result is the same node the serial loop returns.
+        Node findOptimalCameraPositionParallel(double viewRange, ForkJoinPool pool) {
+            return findOptimalCameraPositionParallel(viewRange, IndexType.KD_TREE, pool);
+        }
+
+        Node findOptimalCameraPositionParallel(double viewRange, IndexType indexType, ForkJoinPool pool) {
+            if (nodes.isEmpty()) return null;
+
+            long start = PlacementMetrics.start();
+            prepareIndex(indexType, viewRange);
+            Candidate best = pool.invoke(new CandidateTask(this, viewRange, indexType, 0, nodes.size()));
+            PlacementMetrics.record(PlacementMetrics.Phase.OPTIMAL_SEARCH, start);
+            return best.coveredNodesCount > 0 ? nodes.get(best.index) : null;
+        }
+
+        // Best (node index, coverage) pair found within one slice of the candidates
+        static class Candidate {
+            final int index;
+            final int coveredNodesCount;
+
+            Candidate(int index, int coveredNodesCount) {
+                this.index = index;
+                this.coveredNodesCount = coveredNodesCount;
+            }
+
+            static Candidate better(Candidate a, Candidate b) {
+                if (a.coveredNodesCount != b.coveredNodesCount) {
+                    return a.coveredNodesCount > b.coveredNodesCount ? a : b;
+                }
+                return a.index <= b.index ? a : b;
+            }
+        }
+
+        @SuppressWarnings("serial") // fork-join tasks are never serialized
+        private static class CandidateTask extends RecursiveTask<Candidate> {
+            private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+            private final Graph graph;
+            private final double viewRange;
+            private final IndexType indexType;
+            private final int from, to;
+
+            CandidateTask(Graph graph, double viewRange, IndexType indexType, int from, int to) {
+                this.graph = graph;
+                this.viewRange = viewRange;
+                this.indexType = indexType;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected Candidate compute() {
+                if (to - from <= SEQUENTIAL_THRESHOLD) {
+                    Candidate best = new Candidate(from, 0);
+                    for (int i = from; i < to; i++) {
+                        int coveredNodesCount = graph.countCoveredNodes(graph.nodes.get(i), viewRange, indexType);
+                        if (coveredNodesCount > best.coveredNodesCount) best = new Candidate(i, coveredNodesCount);
+                    }
+                    return best;
+                }
+
+                int mid = (from + to) >>> 1;
+                CandidateTask left = new CandidateTask(graph, viewRange, indexType, from, mid);
+                left.fork();
+                Candidate right = new CandidateTask(graph, viewRange, indexType, mid, to).compute();
+                return Candidate.better(left.join(), right);
+            }
+        }
+
         // Calculate Euclidean distance between two nodes
         static double distance(Node n1, Node n2) {
-            return Math.sqrt(Math.pow(n1.x - n2.x, 2) + Math.pow(n1.y - n2.y, 2) + Math.pow(n1.z - n2.z, 2));
+            return Math.sqrt(Geometry.distanceSquared(n1.x, n1.y, n1.z, n2.x, n2.y, n2.z));
+        }
+
+        // Graph over bulk-loaded sites, with the nodes in the order of the site arrays (for example
+        // after SiteArrays.sortAlongHilbertCurve)
+        static Graph fromSites(SiteArrays sites) {
+            Graph graph = new Graph();
+            for (int i = 0; i < sites.size(); i++) {
+                graph.addNode(new Node(sites.ids[i], sites.xs[i], sites.ys[i], sites.zs[i]));
+            }
+            return graph;
+        }
+
+        // Node-restricted optimum over a column store such as an OffHeapSiteStore, without Node
+        // objects: the k-d tree is read from the columns and counted in one dual-tree pass, or the
+        // grid is built from them and queried site by site. Returns the position of the site
+        // covering the most sites (ties to the lowest position), or -1 for an empty store.
+        //
+        // Both indexes copy the coordinates onto the heap: the k-d tree takes about 90 bytes per
+        // site with its boxes and counts, the grid 70 to 100 and at most SpatialHashGrid.MAX_SIZE
+        // sites. Brute Graph.findOptimalSiteIndex is the only path that reads the columns in place.
+        static int findOptimalSiteIndex(SiteColumns sites, double viewRange, IndexType indexType) {
+            int n = sites.size();
+            if (n == 0) return -1;
+
+            long start = PlacementMetrics.start();
+            int[] counts;
+            if (indexType == IndexType.KD_TREE) {
+                counts = new KDTree(sites, true).allRangeCounts(viewRange);
+            } else {
+                SpatialHashGrid grid = new SpatialHashGrid(sites, viewRange);
+                counts = new int[n];
+                for (int i = 0; i < n; i++) counts[i] = grid.rangeCount(sites.x(i), sites.y(i), sites.z(i), viewRange);
+            }
+
+            int bestIndex = -1, maxCoveredNodes = 0;
+            for (int i = 0; i < n; i++) {
+                if (counts[i] > maxCoveredNodes) {
+                    maxCoveredNodes = counts[i];
+                    bestIndex = i;
+                }
+            }
+
+            PlacementMetrics.record(PlacementMetrics.Phase.OPTIMAL_SEARCH, start);
+            return bestIndex;
         }
 
         // Latitude/Longitude to Cartesian conversion
@@ -3,6 +3,8 @@ package DaaProject;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class OptimalCameraPositionMDS {
 
@@ -18,71 +20,678 @@ public class OptimalCameraPositionMDS {
         }
     }
 
+    // Compressed-sparse-row adjacency over dense node ordinals (positions in Graph.nodes).
+    // The neighbours of ordinal v are neighbors[offsets[v] .. offsets[v + 1]), sorted ascending.
+    static class CsrGraph {
+        final int[] ids;
+        final int[] offsets;
+        final int[] neighbors;
+
+        CsrGraph(int[] ids, int[] offsets, int[] neighbors) {
+            this.ids = ids;
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int degree(int v) {
+            return offsets[v + 1] - offsets[v];
+        }
+
+        // Build from a list of undirected (i, j) ordinal pairs, each edge listed once
+        static CsrGraph fromEdges(int[] ids, EdgeList edges) {
+            int n = ids.length;
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < edges.size; e++) offsets[edges.pairs[e] + 1]++;
+            for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+
+            int[] neighbors = new int[edges.size];
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int e = 0; e < edges.size; e += 2) {
+                int i = edges.pairs[e], j = edges.pairs[e + 1];
+                neighbors[next[i]++] = j;
+                neighbors[next[j]++] = i;
+            }
+            for (int v = 0; v < n; v++) Arrays.sort(neighbors, offsets[v], offsets[v + 1]);
+
+            return new CsrGraph(ids, offsets, neighbors);
+        }
+    }
+
+    // Growable list of (i, j) node ordinal pairs
+    static class EdgeList {
+        int[] pairs = new int[16];
+        int size;
+
+        void add(int i, int j) {
+            if (size + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            pairs[size++] = i;
+            pairs[size++] = j;
+        }
+
+        EdgeList append(EdgeList other) {
+            if (size + other.size > pairs.length) pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, size + other.size));
+            System.arraycopy(other.pairs, 0, pairs, size, other.size);
+            size += other.size;
+            return this;
+        }
+    }
+
+    // Per-node neighbourhood bitsets. Each row only stores the words between its lowest and
+    // highest neighbour, so spatially clustered ordinals give short rows.
+    static class NeighborhoodBitsets {
+        final int[] firstWord;
+        final int[] rowOffsets;
+        final long[] words;
+
+        private NeighborhoodBitsets(int[] firstWord, int[] rowOffsets, long[] words) {
+            this.firstWord = firstWord;
+            this.rowOffsets = rowOffsets;
+            this.words = words;
+        }
+
+        // Returns null when the rows would need more than maxWords words in total
+        static NeighborhoodBitsets build(CsrGraph graph, long maxWords) {
+            int n = graph.size();
+            int[] firstWord = new int[n];
+            int[] rowOffsets = new int[n + 1];
+
+            long totalWords = 0;
+            for (int v = 0; v < n; v++) {
+                int from = graph.offsets[v], to = graph.offsets[v + 1];
+                if (from < to) {
+                    // CSR rows are sorted, so the first and last entries bound the row
+                    firstWord[v] = graph.neighbors[from] >>> 6;
+                    totalWords += (graph.neighbors[to - 1] >>> 6) - firstWord[v] + 1;
+                    if (totalWords > maxWords) return null;
+                }
+                rowOffsets[v + 1] = (int) totalWords;
+            }
+
+            long[] words = new long[(int) totalWords];
+            for (int v = 0; v < n; v++) {
+                int base = rowOffsets[v] - firstWord[v];
+                for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                    int u = graph.neighbors[e];
+                    words[base + (u >>> 6)] |= 1L << u;
+                }
+            }
+
+            return new NeighborhoodBitsets(firstWord, rowOffsets, words);
+        }
+
+        // Number of v's neighbours whose bit is not set in covered
+        int countUncovered(int v, long[] covered) {
+            int count = 0;
+            int word = firstWord[v];
+            for (int i = rowOffsets[v]; i < rowOffsets[v + 1]; i++, word++) {
+                count += Long.bitCount(words[i] & ~covered[word]);
+            }
+            return count;
+        }
+
+        // Sets the bits of v's neighbours in covered and returns how many were newly set
+        int cover(int v, long[] covered) {
+            int newlyCovered = 0;
+            int word = firstWord[v];
+            for (int i = rowOffsets[v]; i < rowOffsets[v + 1]; i++, word++) {
+                newlyCovered += Long.bitCount(words[i] & ~covered[word]);
+                covered[word] |= words[i];
+            }
+            return newlyCovered;
+        }
+    }
+
     static class Graph {
         List<Node> nodes = new ArrayList<>();
-        Map<Integer, Set<Integer>> adjacencyList = new HashMap<>();
+
+        // addNode/addEdge fill the adjacency sets; freeze() turns them into the CSR form the
+        // algorithms run on. buildGraph produces the CSR form directly and drops the sets; they
+        // are only materialised again if the graph is edited or read through adjacencyList.
+        private final Map<Integer, Set<Integer>> adjacencySets = new HashMap<>();
+
+        // The adjacency sets as callers read and edit them. Any access materialises the sets
+        // once and drops the CSR form, so edits made through it are seen by the next freeze().
+        final Map<Integer, Set<Integer>> adjacencyList = new AbstractMap<Integer, Set<Integer>>() {
+            @Override
+            public Set<Map.Entry<Integer, Set<Integer>>> entrySet() {
+                return editableSets().entrySet();
+            }
+
+            @Override
+            public Set<Integer> get(Object id) {
+                return editableSets().get(id);
+            }
+
+            @Override
+            public Set<Integer> put(Integer id, Set<Integer> neighbors) {
+                return editableSets().put(id, neighbors);
+            }
+
+            @Override
+            public Set<Integer> remove(Object id) {
+                return editableSets().remove(id);
+            }
+
+            @Override
+            public boolean containsKey(Object id) {
+                return editableSets().containsKey(id);
+            }
+
+            @Override
+            public int size() {
+                return editableSets().size();
+            }
+        };
+        private boolean adjacencyListStale;
+        private CsrGraph csr;
 
         void addNode(Node node) {
+            thaw();
             nodes.add(node);
-            adjacencyList.put(node.id, new HashSet<>());
+            adjacencySets.put(node.id, new HashSet<>());
+            csr = null;
         }
 
         // Method to add an undirected edge between two nodes
         void addEdge(int node1Id, int node2Id) {
-            adjacencyList.get(node1Id).add(node2Id);
-            adjacencyList.get(node2Id).add(node1Id);
+            thaw();
+            adjacencySets.get(node1Id).add(node2Id);
+            adjacencySets.get(node2Id).add(node1Id);
+            csr = null;
+        }
+
+        // Incremental state, present once enableDynamicUpdates is called
+        private DynamicSiteIndex dynamicIndex;
+        private Set<Integer> dynamicDominatingSet;
+        private Map<Integer, Integer> dominatorCounts; // dominators in each node's closed neighbourhood
+        private Map<Integer, Integer> positions;       // index of each node in nodes
+
+        // Build the view-range graph and from now on keep it, together with a dominating set,
+        // up to date as nodes are inserted and removed. Edges added by hand are not tracked.
+        void enableDynamicUpdates(double viewRange) {
+            buildGraph(viewRange);
+            thaw();
+
+            dynamicIndex = new DynamicSiteIndex(viewRange);
+            dominatorCounts = new HashMap<>();
+            positions = new HashMap<>();
+            for (Node node : nodes) {
+                dynamicIndex.insert(node.id, node.x, node.y, node.z);
+                dominatorCounts.put(node.id, 0);
+                positions.put(node.id, positions.size());
+            }
+
+            dynamicDominatingSet = new HashSet<>();
+            for (int dominator : findMinimumDominatingSetLazy()) addDominator(dominator);
+        }
+
+        // Adds a node and its view-range edges. If no dominator sees the new node, it joins the set.
+        void insertNode(Node node) {
+            requireDynamicUpdates();
+            if (positions.containsKey(node.id)) throw new IllegalArgumentException("Duplicate node id: " + node.id);
+
+            addNode(node);
+            positions.put(node.id, nodes.size() - 1);
+            dynamicIndex.insert(node.id, node.x, node.y, node.z);
+
+            Set<Integer> neighbors = adjacencySets.get(node.id);
+            dynamicIndex.forEachNeighbor(node.id, neighborId -> {
+                neighbors.add(neighborId);
+                adjacencySets.get(neighborId).add(node.id);
+            });
+
+            int dominators = 0;
+            for (int neighborId : neighbors) {
+                if (dynamicDominatingSet.contains(neighborId)) dominators++;
+            }
+            dominatorCounts.put(node.id, dominators);
+            if (dominators == 0) addDominator(node.id);
+        }
+
+        // Removes a node and its edges. If it was a dominator, the neighbours it leaves uncovered
+        // are re-covered greedily from their own neighbourhoods. The last node is moved into the
+        // freed slot, so node order (and with it greedy tie-breaks) changes after a removal.
+        void removeNode(int id) {
+            requireDynamicUpdates();
+            Integer position = positions.remove(id);
+            if (position == null) throw new IllegalArgumentException("Unknown node id: " + id);
+            thaw();
+
+            Set<Integer> neighbors = adjacencySets.remove(id);
+            for (int neighborId : neighbors) adjacencySets.get(neighborId).remove(id);
+            Node last = nodes.remove(nodes.size() - 1);
+            if (last.id != id) {
+                nodes.set(position, last);
+                positions.put(last.id, position);
+            }
+            csr = null;
+            dynamicIndex.remove(id);
+            dominatorCounts.remove(id);
+
+            if (!dynamicDominatingSet.remove(id)) return;
+
+            Set<Integer> uncovered = new HashSet<>();
+            for (int neighborId : neighbors) {
+                if (dominatorCounts.merge(neighborId, -1, Integer::sum) == 0) uncovered.add(neighborId);
+            }
+
+            while (!uncovered.isEmpty()) {
+                // The uncovered nodes and their neighbours are the only useful candidates
+                int bestNode = -1;
+                int maxUncovered = 0;
+                Set<Integer> candidates = new TreeSet<>(uncovered);
+                for (int node : uncovered) candidates.addAll(adjacencySets.get(node));
+
+                for (int candidate : candidates) {
+                    int count = uncovered.contains(candidate) ? 1 : 0;
+                    for (int neighborId : adjacencySets.get(candidate)) {
+                        if (uncovered.contains(neighborId)) count++;
+                    }
+                    if (count > maxUncovered) {
+                        maxUncovered = count;
+                        bestNode = candidate;
+                    }
+                }
+
+                addDominator(bestNode);
+                uncovered.removeIf(node -> dominatorCounts.get(node) > 0);
+            }
+        }
+
+        // The dominating set maintained since enableDynamicUpdates. It stays valid after every
+        // change but is only repaired locally, so it can drift from what a full
+        // findMinimumDominatingSet run would return.
+        Set<Integer> currentDominatingSet() {
+            requireDynamicUpdates();
+            return Collections.unmodifiableSet(dynamicDominatingSet);
+        }
+
+        private void addDominator(int id) {
+            dynamicDominatingSet.add(id);
+            dominatorCounts.merge(id, 1, Integer::sum);
+            for (int neighborId : adjacencySets.get(id)) dominatorCounts.merge(neighborId, 1, Integer::sum);
+        }
+
+        private void requireDynamicUpdates() {
+            if (dynamicIndex == null) throw new IllegalStateException("Dynamic updates are not enabled");
+        }
+
+        // The CSR view of the current graph, built from the adjacency sets if needed
+        CsrGraph freeze() {
+            if (csr != null) return csr;
+
+            int n = nodes.size();
+            int[] ids = new int[n];
+            Map<Integer, Integer> ordinals = new HashMap<>();
+            for (int v = 0; v < n; v++) {
+                ids[v] = nodes.get(v).id;
+                ordinals.put(ids[v], v);
+            }
+
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) offsets[v + 1] = offsets[v] + adjacencySets.get(ids[v]).size();
+
+            int[] neighbors = new int[offsets[n]];
+            for (int v = 0; v < n; v++) {
+                int position = offsets[v];
+                for (int neighborId : adjacencySets.get(ids[v])) neighbors[position++] = ordinals.get(neighborId);
+                Arrays.sort(neighbors, offsets[v], offsets[v + 1]);
+            }
+
+            csr = new CsrGraph(ids, offsets, neighbors);
+            return csr;
+        }
+
+        private Map<Integer, Set<Integer>> editableSets() {
+            thaw();
+            csr = null;
+            return adjacencySets;
+        }
+
+        private void thaw() {
+            if (!adjacencyListStale) return;
+
+            adjacencyListStale = false;
+            for (int v = 0; v < csr.size(); v++) {
+                Set<Integer> neighborIds = new HashSet<>();
+                for (int e = csr.offsets[v]; e < csr.offsets[v + 1]; e++) neighborIds.add(csr.ids[csr.neighbors[e]]);
+                adjacencySets.put(csr.ids[v], neighborIds);
+            }
+        }
+
+        private int[] nodeIds() {
+            int[] ids = new int[nodes.size()];
+            for (int v = 0; v < ids.length; v++) ids[v] = nodes.get(v).id;
+            return ids;
+        }
+
+        // The new CSR form replaces every edge, so the sets are dropped rather than rebuilt from
+        // the CSR form being discarded
+        private void setCsr(CsrGraph graph) {
+            adjacencySets.clear();
+            csr = graph;
+            adjacencyListStale = true;
         }
 
         // Calculate the Euclidean distance between two nodes
         static double distance(Node n1, Node n2) {
-            return Math.sqrt(Math.pow(n1.x - n2.x, 2) + Math.pow(n1.y - n2.y, 2) + Math.pow(n1.z - n2.z, 2));
+            return Math.sqrt(Geometry.distanceSquared(n1.x, n1.y, n1.z, n2.x, n2.y, n2.z));
         }
 
-        // Build a graph based on view range (create edges between nodes within view range)
+        // Bucket the nodes into a grid with cells as wide as the view range
+        private SpatialHashGrid buildSpatialHashGrid(double viewRange) {
+            int n = nodes.size();
+            double[] xs = new double[n], ys = new double[n], zs = new double[n];
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                xs[i] = node.x;
+                ys[i] = node.y;
+                zs[i] = node.z;
+            }
+            return new SpatialHashGrid(xs, ys, zs, n, viewRange);
+        }
+
+        // Build a graph based on view range (create edges between nodes within view range).
+        // Only the grid cells around each node are scanned, so the cost is O(n + edges), and the
+        // edges go straight into the CSR form, replacing any edges added before.
         void buildGraph(double viewRange) {
+            long start = PlacementMetrics.start();
+            SpatialHashGrid grid = buildSpatialHashGrid(viewRange);
+            EdgeList edges = new EdgeList();
             for (int i = 0; i < nodes.size(); i++) {
-                for (int j = i + 1; j < nodes.size(); j++) {
-                    if (distance(nodes.get(i), nodes.get(j)) <= viewRange) {
-                        addEdge(nodes.get(i).id, nodes.get(j).id);
+                Node a = nodes.get(i);
+                int from = i;
+                grid.forEachInRange(a.x, a.y, a.z, viewRange, j -> {
+                    if (j > from) edges.add(from, j);
+                });
+            }
+            setCsr(CsrGraph.fromEdges(nodeIds(), edges));
+            PlacementMetrics.record(PlacementMetrics.Phase.GRAPH_BUILD, start);
+        }
+
+        // Parallel variant: each task collects the edges of its slice of nodes into its own list,
+        // and the lists are merged into the CSR form on the calling thread
+        void buildGraphParallel(double viewRange) {
+            long start = PlacementMetrics.start();
+            SpatialHashGrid grid = buildSpatialHashGrid(viewRange);
+            EdgeList edges = ForkJoinPool.commonPool().invoke(new EdgeTask(this, grid, viewRange, 0, nodes.size()));
+            setCsr(CsrGraph.fromEdges(nodeIds(), edges));
+            PlacementMetrics.record(PlacementMetrics.Phase.GRAPH_BUILD, start);
+        }
+
+        @SuppressWarnings("serial") // fork-join tasks are never serialized
+        private static class EdgeTask extends RecursiveTask<EdgeList> {
+            private static final int SEQUENTIAL_THRESHOLD = 2048;
+
+            private final Graph graph;
+            private final SpatialHashGrid grid;
+            private final double viewRange;
+            private final int from, to;
+
+            EdgeTask(Graph graph, SpatialHashGrid grid, double viewRange, int from, int to) {
+                this.graph = graph;
+                this.grid = grid;
+                this.viewRange = viewRange;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected EdgeList compute() {
+                if (to - from <= SEQUENTIAL_THRESHOLD) {
+                    EdgeList edges = new EdgeList();
+                    for (int i = from; i < to; i++) {
+                        Node a = graph.nodes.get(i);
+                        int source = i;
+                        grid.forEachInRange(a.x, a.y, a.z, viewRange, j -> {
+                            if (j > source) edges.add(source, j);
+                        });
                     }
+                    return edges;
                 }
+
+                int mid = (from + to) >>> 1;
+                EdgeTask left = new EdgeTask(graph, grid, viewRange, from, mid);
+                left.fork();
+                EdgeList right = new EdgeTask(graph, grid, viewRange, mid, to).compute();
+                return left.join().append(right);
             }
         }
 
-        // Greedy Approximation Algorithm for Minimum Dominating Set
+        // Greedy Approximation Algorithm for Minimum Dominating Set, run on the CSR form.
+        // Ties on the number of uncovered neighbours go to the node added first.
         Set<Integer> findMinimumDominatingSet() {
+            long start = PlacementMetrics.start();
+            CsrGraph graph = freeze();
+            int n = graph.size();
+
             Set<Integer> dominatingSet = new HashSet<>();
-            Set<Integer> covered = new HashSet<>();
-            Set<Integer> allNodes = new HashSet<>(adjacencyList.keySet());
+            boolean[] covered = new boolean[n];
+            boolean[] selected = new boolean[n];
+            int uncoveredCount = n;
 
-            while (!covered.containsAll(allNodes)) {
+            while (uncoveredCount > 0) {
                 // Find the node with the highest number of uncovered neighbors
                 int bestNode = -1;
                 int maxUncoveredNeighbors = -1;
 
-                for (int node : allNodes) {
-                    if (dominatingSet.contains(node)) continue;
+                for (int v = 0; v < n; v++) {
+                    if (selected[v]) continue;
 
-                    Set<Integer> uncoveredNeighbors = new HashSet<>(adjacencyList.get(node));
-                    uncoveredNeighbors.removeAll(covered);
+                    int uncoveredNeighbors = 0;
+                    for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                        if (!covered[graph.neighbors[e]]) uncoveredNeighbors++;
+                    }
 
-                    if (uncoveredNeighbors.size() > maxUncoveredNeighbors) {
-                        maxUncoveredNeighbors = uncoveredNeighbors.size();
-                        bestNode = node;
+                    if (uncoveredNeighbors > maxUncoveredNeighbors) {
+                        maxUncoveredNeighbors = uncoveredNeighbors;
+                        bestNode = v;
                     }
                 }
 
                 // Add the selected node to the dominating set
-                dominatingSet.add(bestNode);
+                if (PlacementMetrics.ENABLED) PlacementMetrics.GREEDY_ROUNDS.increment();
+                selected[bestNode] = true;
+                dominatingSet.add(graph.ids[bestNode]);
 
                 // Mark the selected node and its neighbors as covered
-                covered.add(bestNode);
-                covered.addAll(adjacencyList.get(bestNode));
+                if (!covered[bestNode]) {
+                    covered[bestNode] = true;
+                    uncoveredCount--;
+                }
+                for (int e = graph.offsets[bestNode]; e < graph.offsets[bestNode + 1]; e++) {
+                    int neighbor = graph.neighbors[e];
+                    if (!covered[neighbor]) {
+                        covered[neighbor] = true;
+                        uncoveredCount--;
+                    }
+                }
+            }
+
+            PlacementMetrics.record(PlacementMetrics.Phase.DOMINATING_SET, start);
+            return dominatingSet;
+        }
+
+        // Lazy-greedy (CELF-style) variant. Uncovered-neighbour counts are kept up to date as nodes
+        // get covered, and heap entries are only refreshed when they reach the top with a stale
+        // count. Returns the same set as findMinimumDominatingSet.
+        Set<Integer> findMinimumDominatingSetLazy() {
+            long start = PlacementMetrics.start();
+            CsrGraph graph = freeze();
+            int n = graph.size();
+
+            Set<Integer> dominatingSet = new HashSet<>();
+            boolean[] covered = new boolean[n];
+            int[] uncoveredNeighbors = new int[n];
+            LongMaxHeap heap = new LongMaxHeap(n);
+            int uncoveredCount = n;
+
+            for (int v = 0; v < n; v++) {
+                uncoveredNeighbors[v] = graph.degree(v);
+                heap.push(LongMaxHeap.entry(uncoveredNeighbors[v], v));
+            }
+
+            while (uncoveredCount > 0) {
+                long top = heap.pop();
+                int v = LongMaxHeap.node(top);
+
+                // Stale entry: its count has dropped since it was pushed, so re-queue it
+                if (LongMaxHeap.gain(top) != uncoveredNeighbors[v]) {
+                    if (PlacementMetrics.ENABLED) PlacementMetrics.STALE_HEAP_POPS.increment();
+                    heap.push(LongMaxHeap.entry(uncoveredNeighbors[v], v));
+                    continue;
+                }
+
+                if (PlacementMetrics.ENABLED) PlacementMetrics.GREEDY_ROUNDS.increment();
+                dominatingSet.add(graph.ids[v]);
+                if (!covered[v]) {
+                    covered[v] = true;
+                    uncoveredCount--;
+                    for (int f = graph.offsets[v]; f < graph.offsets[v + 1]; f++) uncoveredNeighbors[graph.neighbors[f]]--;
+                }
+                for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                    int neighbor = graph.neighbors[e];
+                    if (covered[neighbor]) continue;
+
+                    covered[neighbor] = true;
+                    uncoveredCount--;
+                    for (int f = graph.offsets[neighbor]; f < graph.offsets[neighbor + 1]; f++) {
+                        uncoveredNeighbors[graph.neighbors[f]]--;
+                    }
+                }
+            }
+
+            PlacementMetrics.record(PlacementMetrics.Phase.DOMINATING_SET, start);
+            return dominatingSet;
+        }
+
+        // Variant with coverage held in a long[] bitset. Candidate gains are recomputed when they
+        // reach the top of the heap (CELF), using popcount over the word-wise AND-NOT of a node's
+        // neighbourhood bitset and the covered bits. Graphs whose rows are too scattered for
+        // compact bitsets fall back to testing the sorted CSR row against the covered bits.
+        // Returns the same set as findMinimumDominatingSet.
+        Set<Integer> findMinimumDominatingSetBitset() {
+            long start = PlacementMetrics.start();
+            CsrGraph graph = freeze();
+            int n = graph.size();
+
+            Set<Integer> dominatingSet = new HashSet<>();
+            long[] covered = new long[(n + 63) >>> 6];
+            NeighborhoodBitsets rows = NeighborhoodBitsets.build(graph, graph.neighbors.length);
+            LongMaxHeap heap = new LongMaxHeap(n);
+            int uncoveredCount = n;
+
+            for (int v = 0; v < n; v++) heap.push(LongMaxHeap.entry(graph.degree(v), v));
+
+            while (uncoveredCount > 0) {
+                long top = heap.pop();
+                int v = LongMaxHeap.node(top);
+
+                int gain = rows != null ? rows.countUncovered(v, covered) : countUncovered(graph, v, covered);
+                if (gain != LongMaxHeap.gain(top)) {
+                    if (PlacementMetrics.ENABLED) PlacementMetrics.STALE_HEAP_POPS.increment();
+                    heap.push(LongMaxHeap.entry(gain, v));
+                    continue;
+                }
+
+                if (PlacementMetrics.ENABLED) PlacementMetrics.GREEDY_ROUNDS.increment();
+                dominatingSet.add(graph.ids[v]);
+                if ((covered[v >>> 6] & (1L << v)) == 0) {
+                    covered[v >>> 6] |= 1L << v;
+                    uncoveredCount--;
+                }
+                uncoveredCount -= rows != null ? rows.cover(v, covered) : cover(graph, v, covered);
             }
 
+            PlacementMetrics.record(PlacementMetrics.Phase.DOMINATING_SET, start);
             return dominatingSet;
         }
 
+        // Lazy greedy over closed neighbourhoods: a node covers itself and its neighbours, and
+        // only nodes that cover something new are picked. Stops once every node is covered or
+        // limit nodes are picked, so a limit of graph.size() gives a dominating set and a smaller
+        // limit the best-k coverage. Returns the picked ordinals in pick order; ties go to the
+        // lower ordinal.
+        static int[] findGreedyCover(CsrGraph graph, int limit) {
+            long start = PlacementMetrics.start();
+            int n = graph.size();
+            boolean[] covered = new boolean[n];
+            int[] gain = new int[n];
+            LongMaxHeap heap = new LongMaxHeap(n);
+            for (int v = 0; v < n; v++) {
+                gain[v] = graph.degree(v) + 1;
+                heap.push(LongMaxHeap.entry(gain[v], v));
+            }
+
+            int[] picked = new int[Math.min(n, Math.max(0, limit))];
+            int pickedCount = 0, uncoveredCount = n;
+            while (uncoveredCount > 0 && pickedCount < picked.length) {
+                long top = heap.pop();
+                int v = LongMaxHeap.node(top);
+                if (LongMaxHeap.gain(top) != gain[v]) {
+                    if (PlacementMetrics.ENABLED) PlacementMetrics.STALE_HEAP_POPS.increment();
+                    if (gain[v] > 0) heap.push(LongMaxHeap.entry(gain[v], v));
+                    continue;
+                }
+
+                if (PlacementMetrics.ENABLED) PlacementMetrics.GREEDY_ROUNDS.increment();
+                picked[pickedCount++] = v;
+                uncoveredCount -= coverClosed(graph, v, covered, gain);
+                for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                    uncoveredCount -= coverClosed(graph, graph.neighbors[e], covered, gain);
+                }
+            }
+
+            PlacementMetrics.record(PlacementMetrics.Phase.DOMINATING_SET, start);
+            return Arrays.copyOf(picked, pickedCount);
+        }
+
+        // Marks u covered and takes it out of the gain of every node whose closed neighbourhood
+        // holds it. Returns 1 if u was newly covered.
+        private static int coverClosed(CsrGraph graph, int u, boolean[] covered, int[] gain) {
+            if (covered[u]) return 0;
+
+            covered[u] = true;
+            gain[u]--;
+            for (int f = graph.offsets[u]; f < graph.offsets[u + 1]; f++) gain[graph.neighbors[f]]--;
+            return 1;
+        }
+
+        private static int countUncovered(CsrGraph graph, int v, long[] covered) {
+            int count = 0;
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                int u = graph.neighbors[e];
+                count += (int) ((~covered[u >>> 6] >>> u) & 1L);
+            }
+            return count;
+        }
+
+        private static int cover(CsrGraph graph, int v, long[] covered) {
+            int newlyCovered = 0;
+            for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+                int u = graph.neighbors[e];
+                if ((covered[u >>> 6] & (1L << u)) == 0) {
+                    covered[u >>> 6] |= 1L << u;
+                    newlyCovered++;
+                }
+            }
+            return newlyCovered;
+        }
+
+        // Graph over bulk-loaded sites, with the nodes in the order of the site arrays (for example
+        // after SiteArrays.sortAlongHilbertCurve)
+        static Graph fromSites(SiteArrays sites) {
+            Graph graph = new Graph();
+            for (int i = 0; i < sites.size(); i++) {
+                graph.addNode(new Node(sites.ids[i], sites.xs[i], sites.ys[i], sites.zs[i]));
+            }
+            return graph;
+        }
+
         // Latitude/Longitude to Cartesian conversion
         static Node latLonToCartesian(int id, double lat, double lon) {
             final double R = 6371; // Earth's radius in km
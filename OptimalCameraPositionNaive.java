@@ -1,5 +1,7 @@
 package DaaProject;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class OptimalCameraPositionNaive {
@@ -25,15 +27,16 @@ public class OptimalCameraPositionNaive {
 
         // Method to calculate the Euclidean distance between two nodes
         static double distance(Node n1, Node n2) {
-            return Math.sqrt(Math.pow(n1.x - n2.x, 2) + Math.pow(n1.y - n2.y, 2) + Math.pow(n1.z - n2.z, 2));
+            return Math.sqrt(Geometry.distanceSquared(n1.x, n1.y, n1.z, n2.x, n2.y, n2.z));
         }
 
         // Method to count the number of nodes within view range of a given position
         // and return their IDs
         static List<Integer> countNodesInViewRange(double x, double y, double z, List<Node> nodes, double viewRange) {
             List<Integer> nodeIdsInView = new ArrayList<>();
+            double rangeSquared = viewRange * viewRange;
             for (Node node : nodes) {
-                if (distance(new Node(-1, x, y, z), node) <= viewRange) {
+                if (Geometry.withinRange(x, y, z, node.x, node.y, node.z, rangeSquared)) {
                     nodeIdsInView.add(node.id);
                 }
             }
@@ -42,39 +45,39 @@ public class OptimalCameraPositionNaive {
 
         // Method to find the optimal position for the camera using a grid traversal
         Node findOptimalCameraPosition(double viewRange, double gridStep) {
+            return findOptimalCameraPosition(viewRange, gridStep, CandidateStrategy.BOUNDING_BOX);
+        }
+
+        Node findOptimalCameraPosition(double viewRange, double gridStep, CandidateStrategy strategy) {
             if (nodes.isEmpty()) return null;
 
-            // Determine the boundaries of the grid based on the farthest nodes
-            double minX = nodes.stream().mapToDouble(node -> node.x).min().orElse(0);
-            double minY = nodes.stream().mapToDouble(node -> node.y).min().orElse(0);
-            double minZ = nodes.stream().mapToDouble(node -> node.z).min().orElse(0);
-            double maxX = nodes.stream().mapToDouble(node -> node.x).max().orElse(0);
-            double maxY = nodes.stream().mapToDouble(node -> node.y).max().orElse(0);
-            double maxZ = nodes.stream().mapToDouble(node -> node.z).max().orElse(0);
-
-            Node optimalNode = new Node(-1, (minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
-            int maxCoveredNodes = 0;
-
-            // Traverse each point on the grid
-            for (double x = minX; x <= maxX; x += gridStep) {
-                for (double y = minY; y <= maxY; y += gridStep) {
-                    for (double z = minZ; z <= maxZ; z += gridStep) {
-                        List<Integer> visibleNodeIds = countNodesInViewRange(x, y, z, nodes, viewRange);
-                        int coveredNodesCount = visibleNodeIds.size();
-                        if (coveredNodesCount > maxCoveredNodes ||
-                                (coveredNodesCount == maxCoveredNodes && distance(optimalNode, new Node(-1, x, y, z)) <
-                                        distance(optimalNode, new Node(-1,
-                                                (minX + maxX) / 2,
-                                                (minY + maxY) / 2,
-                                                (minZ + maxZ) / 2)))) {
-                            maxCoveredNodes = coveredNodesCount;
-                            optimalNode = new Node(-1, x, y, z);
-                        }
-                    }
-                }
+            LatticeSearch search = new LatticeSearch(nodes, viewRange, gridStep);
+            if (strategy == CandidateStrategy.SURFACE_SHELL) {
+                search.shell();
+            } else {
+                search.exhaustive();
             }
+            return search.optimalNode();
+        }
 
-            return optimalNode;
+        // Coarse-to-fine variant: returns the same lattice point as the exhaustive traversal, but
+        // skips every block of the lattice whose coverage bound cannot beat the best point so far
+        Node findOptimalCameraPositionHierarchical(double viewRange, double gridStep) {
+            if (nodes.isEmpty()) return null;
+
+            LatticeSearch search = new LatticeSearch(nodes, viewRange, gridStep);
+            search.hierarchical();
+            return search.optimalNode();
+        }
+
+        // Graph over bulk-loaded sites, with the nodes in the order of the site arrays (for example
+        // after SiteArrays.sortAlongHilbertCurve)
+        static Graph fromSites(SiteArrays sites) {
+            Graph graph = new Graph();
+            for (int i = 0; i < sites.size(); i++) {
+                graph.addNode(new Node(sites.ids[i], sites.xs[i], sites.ys[i], sites.zs[i]));
+            }
+            return graph;
         }
 
         // Method to convert latitude and longitude to Cartesian coordinates
@@ -95,38 +98,271 @@ public class OptimalCameraPositionNaive {
         }
     }
 
-    public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
-        Graph graph = new Graph();
+    // Which lattice points findOptimalCameraPosition evaluates
+    enum CandidateStrategy {
+        // Every point of the bounding box lattice
+        BOUNDING_BOX,
+        // Only lattice points in the spherical shell that can see a node: a point covers a node only
+        // if its distance from the Earth's centre is within viewRange of the node's. Points outside
+        // the shell cover nothing, so the result is the same as BOUNDING_BOX.
+        SURFACE_SHELL
+    }
 
-        // Adding nodes to the graph (latitude and longitude)
-        System.out.println("Enter the number of nodes:");
-        int numNodes = scanner.nextInt();
+    // Search over the lattice minX + i * gridStep (likewise for y and z) spanning the bounding box
+    // of the nodes. The best point covers the most nodes; ties go to the point closest to the centre
+    // of the box and then to the lowest (i, j, k). If no lattice point covers any node the centre is
+    // returned.
+    static class LatticeSearch {
+        // Blocks with at most this many lattice points are evaluated point by point
+        private static final int LEAF_POINTS = 64;
 
-        for (int i = 0; i < numNodes; i++) {
-            System.out.println("Enter latitude and longitude for node " + (i + 1) + ":");
+        private final int n;
+        private final double[] xs, ys, zs;
+        private final double rangeSquared, gridStep;
+        private final double minX, minY, minZ;
+        private final double centerX, centerY, centerZ;
+        private final int nx, ny, nz; // highest lattice index on each axis
+        private final double innerRadius, outerRadius; // shell holding every point that can see a node
 
-            while (!scanner.hasNextDouble()) {
-                System.out.println("Invalid input. Please enter a valid latitude:");
-                scanner.next();
+        private int bestCount;
+        private double bestDistanceSquared;
+        private long bestKey = Long.MAX_VALUE;
+        private double bestX, bestY, bestZ;
+
+        LatticeSearch(List<Node> nodes, double viewRange, double gridStep) {
+            n = nodes.size();
+            xs = new double[n];
+            ys = new double[n];
+            zs = new double[n];
+
+            // Determine the boundaries of the grid based on the farthest nodes
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            double lowX = Double.POSITIVE_INFINITY, lowY = Double.POSITIVE_INFINITY, lowZ = Double.POSITIVE_INFINITY;
+            double minRadius = Double.POSITIVE_INFINITY, maxRadius = 0;
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                xs[i] = node.x;
+                ys[i] = node.y;
+                zs[i] = node.z;
+                double radius = Math.sqrt(node.x * node.x + node.y * node.y + node.z * node.z);
+                minRadius = Math.min(minRadius, radius);
+                maxRadius = Math.max(maxRadius, radius);
+                lowX = Math.min(lowX, node.x);
+                lowY = Math.min(lowY, node.y);
+                lowZ = Math.min(lowZ, node.z);
+                maxX = Math.max(maxX, node.x);
+                maxY = Math.max(maxY, node.y);
+                maxZ = Math.max(maxZ, node.z);
             }
 
-            double lat = scanner.nextDouble();
+            this.rangeSquared = viewRange * viewRange;
+            this.gridStep = gridStep;
+            minX = lowX;
+            minY = lowY;
+            minZ = lowZ;
+            centerX = (minX + maxX) / 2;
+            centerY = (minY + maxY) / 2;
+            centerZ = (minZ + maxZ) / 2;
+            nx = (int) Math.floor((maxX - minX) / gridStep);
+            ny = (int) Math.floor((maxY - minY) / gridStep);
+            nz = (int) Math.floor((maxZ - minZ) / gridStep);
+            innerRadius = Math.max(0, minRadius - viewRange);
+            outerRadius = maxRadius + viewRange;
 
-            while (!scanner.hasNextDouble()) {
-                System.out.println("Invalid input. Please enter a valid longitude:");
-                scanner.next();
+            bestX = centerX;
+            bestY = centerY;
+            bestZ = centerZ;
+        }
+
+        Node optimalNode() {
+            return new Node(-1, bestX, bestY, bestZ);
+        }
+
+        // Traverse each point on the grid
+        void exhaustive() {
+            for (int i = 0; i <= nx; i++) {
+                for (int j = 0; j <= ny; j++) {
+                    for (int k = 0; k <= nz; k++) {
+                        int coveredNodesCount = Geometry.countWithinRange(x(i), y(j), z(k), xs, ys, zs, 0, n, rangeSquared);
+                        offer(i, j, k, coveredNodesCount);
+                    }
+                }
             }
+        }
 
-            double lon = scanner.nextDouble();
+        // Traverse only the lattice points inside the shell innerRadius <= |p| <= outerRadius. For
+        // each (x, y) column the shell is one z interval, or two when the column pierces the inner
+        // sphere; the interval ends are rounded outwards to whole lattice steps.
+        void shell() {
+            double outerSquared = outerRadius * outerRadius;
+            double innerSquared = innerRadius * innerRadius;
 
-            graph.addNode(Graph.latLonToCartesian(i + 1, lat, lon));
+            for (int i = 0; i <= nx; i++) {
+                for (int j = 0; j <= ny; j++) {
+                    double x = x(i), y = y(j);
+                    double columnSquared = x * x + y * y;
+                    if (columnSquared > outerSquared) continue;
+
+                    double zOuter = Math.sqrt(outerSquared - columnSquared);
+                    double zInner = columnSquared < innerSquared ? Math.sqrt(innerSquared - columnSquared) : 0;
+
+                    int last = scanColumn(i, j, -zOuter, -zInner, -1);
+                    scanColumn(i, j, zInner, zOuter, last);
+                }
+            }
+        }
+
+        // Evaluates lattice points of column (i, j) with z in [zFrom, zTo] and k > after;
+        // returns the last k evaluated
+        private int scanColumn(int i, int j, double zFrom, double zTo, int after) {
+            int kFrom = Math.max(after + 1, (int) Math.max(0, Math.floor((zFrom - minZ) / gridStep)));
+            int kTo = (int) Math.min(nz, Math.ceil((zTo - minZ) / gridStep));
+            double x = x(i), y = y(j);
+
+            for (int k = kFrom; k <= kTo; k++) {
+                int coveredNodesCount = Geometry.countWithinRange(x, y, z(k), xs, ys, zs, 0, n, rangeSquared);
+                offer(i, j, k, coveredNodesCount);
+            }
+            return Math.max(after, kTo);
+        }
+
+        // Branch and bound over blocks of the lattice. A block can cover at most the nodes within
+        // view range of its bounding box, so each block carries that subset of nodes down to its
+        // children and is dropped once the subset is too small to beat the best point found so far.
+        void hierarchical() {
+            int[] allNodes = new int[n];
+            for (int i = 0; i < n; i++) allNodes[i] = i;
+            refine(new int[]{0, nx, 0, ny, 0, nz}, allNodes, n);
+        }
+
+        private void refine(int[] block, int[] relevant, int relevantCount) {
+            int i0 = block[0], i1 = block[1], j0 = block[2], j1 = block[3], k0 = block[4], k1 = block[5];
+            long points = (long) (i1 - i0 + 1) * (j1 - j0 + 1) * (k1 - k0 + 1);
+
+            if (points <= LEAF_POINTS) {
+                for (int i = i0; i <= i1; i++) {
+                    for (int j = j0; j <= j1; j++) {
+                        for (int k = k0; k <= k1; k++) {
+                            double x = x(i), y = y(j), z = z(k);
+                            int coveredNodesCount = 0;
+                            for (int r = 0; r < relevantCount; r++) {
+                                int node = relevant[r];
+                                if (Geometry.withinRange(x, y, z, xs[node], ys[node], zs[node], rangeSquared)) {
+                                    coveredNodesCount++;
+                                }
+                            }
+                            offer(i, j, k, coveredNodesCount);
+                        }
+                    }
+                }
+                return;
+            }
+
+            // Halve every axis that still has more than one lattice point
+            int im = i1 > i0 ? (i0 + i1) >>> 1 : i1;
+            int jm = j1 > j0 ? (j0 + j1) >>> 1 : j1;
+            int km = k1 > k0 ? (k0 + k1) >>> 1 : k1;
+
+            List<int[]> children = new ArrayList<>(8);
+            for (int[] is : new int[][]{{i0, im}, {im + 1, i1}}) {
+                if (is[0] > is[1]) continue;
+                for (int[] js : new int[][]{{j0, jm}, {jm + 1, j1}}) {
+                    if (js[0] > js[1]) continue;
+                    for (int[] ks : new int[][]{{k0, km}, {km + 1, k1}}) {
+                        if (ks[0] > ks[1]) continue;
+                        children.add(new int[]{is[0], is[1], js[0], js[1], ks[0], ks[1]});
+                    }
+                }
+            }
+
+            // Bound every child, then descend best-first so good incumbents are found early
+            int[][] childRelevant = new int[children.size()][];
+            int[] childCounts = new int[children.size()];
+            Integer[] visitOrder = new Integer[children.size()];
+            for (int c = 0; c < children.size(); c++) {
+                int[] child = children.get(c);
+                childRelevant[c] = new int[relevantCount];
+                for (int r = 0; r < relevantCount; r++) {
+                    int node = relevant[r];
+                    if (blockDistanceSquared(child, xs[node], ys[node], zs[node]) <= rangeSquared) {
+                        childRelevant[c][childCounts[c]++] = node;
+                    }
+                }
+                visitOrder[c] = c;
+            }
+            Arrays.sort(visitOrder, (a, b) -> Integer.compare(childCounts[b], childCounts[a]));
+
+            for (int c : visitOrder) {
+                int[] child = children.get(c);
+                if (canImprove(child, childCounts[c])) refine(child, childRelevant[c], childCounts[c]);
+            }
+        }
+
+        // A block bounded by coverageBound can only win if it beats the best count, or ties it
+        // with a point at least as close to the centre
+        private boolean canImprove(int[] block, int coverageBound) {
+            if (coverageBound == 0 || coverageBound < bestCount) return false;
+            return coverageBound > bestCount || blockDistanceSquared(block, centerX, centerY, centerZ) <= bestDistanceSquared;
+        }
+
+        private void offer(int i, int j, int k, int coveredNodesCount) {
+            if (coveredNodesCount == 0 || coveredNodesCount < bestCount) return;
+
+            double x = x(i), y = y(j), z = z(k);
+            double distanceSquared = Geometry.distanceSquared(x, y, z, centerX, centerY, centerZ);
+            long key = ((long) i * (ny + 1) + j) * (nz + 1) + k;
+
+            if (coveredNodesCount > bestCount || distanceSquared < bestDistanceSquared
+                    || (distanceSquared == bestDistanceSquared && key < bestKey)) {
+                bestCount = coveredNodesCount;
+                bestDistanceSquared = distanceSquared;
+                bestKey = key;
+                bestX = x;
+                bestY = y;
+                bestZ = z;
+            }
+        }
+
+        // Squared distance from a point to the bounding box of a block of lattice points
+        private double blockDistanceSquared(int[] block, double px, double py, double pz) {
+            double dx = px - Math.max(x(block[0]), Math.min(px, x(block[1])));
+            double dy = py - Math.max(y(block[2]), Math.min(py, y(block[3])));
+            double dz = pz - Math.max(z(block[4]), Math.min(pz, z(block[5])));
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        private double x(int i) {
+            return minX + i * gridStep;
+        }
+
+        private double y(int j) {
+            return minY + j * gridStep;
+        }
+
+        private double z(int k) {
+            return minZ + k * gridStep;
+        }
+    }
+
+    // Usage: OptimalCameraPositionNaive [sites.csv | sites.sites]; prompts for nodes when no file is given
+    public static void main(String[] args) throws IOException {
+        Scanner scanner = new Scanner(System.in);
+        Graph graph = new Graph();
+
+        if (args.length > 0) {
+            // Bulk load from a CSV or binary site file instead of prompting, in Hilbert order
+            SiteArrays sites = SiteLoader.load(Paths.get(args[0]));
+            sites.sortAlongHilbertCurve();
+            graph = Graph.fromSites(sites);
+            System.out.println("Loaded " + sites.size() + " nodes from " + args[0]);
+        } else {
+            readNodes(scanner, graph);
         }
 
         System.out.println("Finding optimal camera position...");
         double viewRange = 8.0; // Example view range
         double gridStep = 0.5;  // Example grid step size
-        Node optimalNode = graph.findOptimalCameraPosition(viewRange, gridStep);
+        Node optimalNode = graph.findOptimalCameraPosition(viewRange, gridStep, CandidateStrategy.SURFACE_SHELL);
 
         if (optimalNode != null) {
             List<Integer> visibleNodeIds = Graph.countNodesInViewRange(optimalNode.x, optimalNode.y,
@@ -156,4 +392,30 @@ public class OptimalCameraPositionNaive {
 
         scanner.close();
     }
+
+    // Adding nodes to the graph (latitude and longitude)
+    private static void readNodes(Scanner scanner, Graph graph) {
+        System.out.println("Enter the number of nodes:");
+        int numNodes = scanner.nextInt();
+
+        for (int i = 0; i < numNodes; i++) {
+            System.out.println("Enter latitude and longitude for node " + (i + 1) + ":");
+
+            while (!scanner.hasNextDouble()) {
+                System.out.println("Invalid input. Please enter a valid latitude:");
+                scanner.next();
+            }
+
+            double lat = scanner.nextDouble();
+
+            while (!scanner.hasNextDouble()) {
+                System.out.println("Invalid input. Please enter a valid longitude:");
+                scanner.next();
+            }
+
+            double lon = scanner.nextDouble();
+
+            graph.addNode(Graph.latLonToCartesian(i + 1, lat, lon));
+        }
+    }
 }
\ No newline at end of file
@@ -33,16 +33,27 @@ public class OptimalComparison {
         }
 
         static double distance(Node n1, Node n2) {
-            return Math.sqrt(Math.pow(n1.x - n2.x, 2) + Math.pow(n1.y - n2.y, 2) + Math.pow(n1.z - n2.z, 2));
+            return Math.sqrt(Geometry.distanceSquared(n1.x, n1.y, n1.z, n2.x, n2.y, n2.z));
         }
 
+        // Edges come from a grid with cells as wide as the view range, so the cost is O(n + edges)
         void buildGraph(double viewRange) {
-            for (int i = 0; i < nodes.size(); i++) {
-                for (int j = i + 1; j < nodes.size(); j++) {
-                    if (distance(nodes.get(i), nodes.get(j)) <= viewRange) {
-                        addEdge(nodes.get(i).id, nodes.get(j).id);
-                    }
-                }
+            int n = nodes.size();
+            double[] xs = new double[n], ys = new double[n], zs = new double[n];
+            for (int i = 0; i < n; i++) {
+                Node node = nodes.get(i);
+                xs[i] = node.x;
+                ys[i] = node.y;
+                zs[i] = node.z;
+            }
+            SpatialHashGrid grid = new SpatialHashGrid(xs, ys, zs, n, viewRange);
+
+            for (int i = 0; i < n; i++) {
+                Node a = nodes.get(i);
+                int from = i;
+                grid.forEachInRange(a.x, a.y, a.z, viewRange, j -> {
+                    if (j > from) addEdge(a.id, nodes.get(j).id);
+                });
             }
         }
 
@@ -83,24 +94,59 @@ public class OptimalComparison {
             return dominatingSet;
         }
 
-        // Placeholder methods for finding optimal camera positions
-        Node findOptimalCameraPositionNaive(double viewRange) {
-            return findOptimalCameraPosition(viewRange); // Implement naive logic
+        // Copies of this graph's nodes in each engine's own representation, so every algorithm in the
+        // comparison runs on exactly the same input
+        OptimalCameraPositionKdTree.Graph toKdTreeGraph() {
+            OptimalCameraPositionKdTree.Graph graph = new OptimalCameraPositionKdTree.Graph();
+            for (Node node : nodes) graph.addNode(new OptimalCameraPositionKdTree.Node(node.id, node.x, node.y, node.z));
+            return graph;
         }
 
-        Node findOptimalCameraPositionKdTree(double viewRange) {
-            return findOptimalCameraPosition(viewRange); // Implement KD-Tree logic
+        OptimalCameraPositionNaive.Graph toNaiveGraph() {
+            OptimalCameraPositionNaive.Graph graph = new OptimalCameraPositionNaive.Graph();
+            for (Node node : nodes) graph.addNode(new OptimalCameraPositionNaive.Node(node.id, node.x, node.y, node.z));
+            return graph;
         }
 
-        private Node findOptimalCameraPosition(double viewRange) {
+        OptimalCameraPositionMDS.Graph toMdsGraph() {
+            OptimalCameraPositionMDS.Graph graph = new OptimalCameraPositionMDS.Graph();
+            for (Node node : nodes) graph.addNode(new OptimalCameraPositionMDS.Node(node.id, node.x, node.y, node.z));
+            return graph;
+        }
+
+        // Number of nodes within view range of a camera at the given coordinates
+        int countCoveredNodes(double x, double y, double z, double viewRange) {
+            double rangeSquared = viewRange * viewRange;
+            int count = 0;
+            for (Node node : nodes) {
+                if (Geometry.withinRange(x, y, z, node.x, node.y, node.z, rangeSquared)) count++;
+            }
+            return count;
+        }
+
+        // Number of nodes that are in the set or adjacent to a member of it
+        int countDominatedNodes(Set<Integer> dominatingSet) {
+            Set<Integer> dominated = new HashSet<>();
+            for (int id : dominatingSet) {
+                dominated.add(id);
+                dominated.addAll(adjacencyList.get(id));
+            }
+            return dominated.size();
+        }
+
+        // Reference answer for the single-camera engines: every node position counted exhaustively
+        Node findOptimalCameraPosition(double viewRange) {
             if (nodes.isEmpty()) return null;
 
             Node optimalNode = null;
             int maxCoveredNodes = 0;
 
+            double rangeSquared = viewRange * viewRange;
+
             for (Node candidateNode : nodes) {
                 int coveredNodesCount = (int) nodes.stream()
-                        .filter(targetNode -> distance(candidateNode, targetNode) <= viewRange)
+                        .filter(targetNode -> Geometry.withinRange(candidateNode.x, candidateNode.y, candidateNode.z,
+                                targetNode.x, targetNode.y, targetNode.z, rangeSquared))
                         .count();
 
                 if (coveredNodesCount > maxCoveredNodes) {
@@ -113,24 +159,50 @@ public class OptimalComparison {
         }
     }
 
+    // Grid step of the naive lattice search
+    static final double GRID_STEP = 0.5;
+
+    static final String[] ALGORITHMS = {
+            "Brute Force Camera Position", "Naive Camera Position", "KD-Tree Camera Position", "Minimum Dominating Set"
+    };
+
+    // Per-algorithm totals for the summary printed after the last trial
+    static class Summary {
+        int runs;
+        int checks;
+        int agreements;
+        double totalRuntimeMs;
+        double totalCoverage;
+        double totalCoverageRatio;
+    }
+
     public static void main(String[] args) {
         System.out.println("Programming Started");
 
         try (FileWriter csvWriter = new FileWriter("results.csv")) {
-            csvWriter.append("Trial,Node Size,Algorithm,Runs Time (ms)\n");
+            csvWriter.append("Trial,Node Size,Algorithm,Runs Time (ms),Result Size,Coverage,Coverage Ratio,Agrees\n");
 
             Random random = new Random();
             final int TRIALS = 100;
+            Map<String, Summary> summaries = new LinkedHashMap<>();
+            for (String algorithm : ALGORITHMS) summaries.put(algorithm, new Summary());
 
             for (int trial = 0; trial < TRIALS; trial++) {
                 Graph graph = createRandomGraph(random);
                 double viewRange = 8.0; // Example view range
                 graph.buildGraph(viewRange);
 
-                runAlgorithmsAndRecordTime(csvWriter, trial + 1, graph, viewRange);
+                runAlgorithmsAndRecordTime(csvWriter, trial + 1, graph, viewRange, summaries);
             }
 
             System.out.println("Runtime results saved to results.csv");
+            for (Map.Entry<String, Summary> entry : summaries.entrySet()) {
+                Summary summary = entry.getValue();
+                System.out.printf("%-28s mean runtime %.3f ms | mean coverage %.2f (ratio %.3f) | agreed %s%n",
+                        entry.getKey(), summary.totalRuntimeMs / summary.runs, summary.totalCoverage / summary.runs,
+                        summary.totalCoverageRatio / summary.runs,
+                        summary.checks == 0 ? "n/a" : summary.agreements + "/" + summary.checks);
+            }
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -139,49 +211,113 @@ public class OptimalComparison {
 
     private static Graph createRandomGraph(Random random) {
         Graph graph = new Graph();
-        int size = random.nextInt(6) + 5; // Generates a number between 5 and 10
+        int size = random.nextInt(901) + 100; // Generates a number between 100 and 1000
+
+        // Regional sites at 0.1 per square km, so nodes see tens of neighbours within the view range
+        WorkloadGenerator.Distribution[] distributions = WorkloadGenerator.Distribution.values();
+        WorkloadGenerator.Distribution distribution = distributions[random.nextInt(distributions.length)];
+        WorkloadGenerator.Workload workload = new WorkloadGenerator(random.nextLong(), 0.1).generate(distribution, size);
 
         for (int i = 0; i < size; i++) {
-            double lat = random.nextDouble() * 180 - 90; // Latitude between -90 and +90
-            double lon = random.nextDouble() * 360 - 180; // Longitude between -180 and +180
-            graph.addNode(Graph.latLonToCartesian(i + 1, lat, lon));
+            graph.addNode(Graph.latLonToCartesian(i + 1, workload.lats[i], workload.lons[i]));
         }
 
         return graph;
     }
 
-    private static void runAlgorithmsAndRecordTime(FileWriter csvWriter, int trialNum,
-                                                   Graph graph, double viewRange) throws IOException {
-
-        String[] algorithms = {"Minimum Dominating Set", "Naive Camera Position", "KD-Tree Camera Position"};
+    // Runs every engine on the same graph. Each engine gets its own copy of the nodes before the
+    // clock starts; the timed region covers building the engine's index and answering the query.
+    //
+    // Coverage is the number of nodes the result sees (for the dominating set, the nodes it
+    // dominates), and the coverage ratio compares it with the brute-force node's coverage (with
+    // the node count for the dominating set). Agreement means: the k-d tree returns the
+    // brute-force node with the same count; the dominating set engine returns the reference
+    // greedy set and dominates every node. The naive lattice search is not checked: its lattice
+    // points are not sites, so it can legitimately fall short of the best site, and only its
+    // coverage ratio is reported.
+    private static void runAlgorithmsAndRecordTime(FileWriter csvWriter, int trialNum, Graph graph, double viewRange,
+                                                   Map<String, Summary> summaries) throws IOException {
+
+        OptimalCameraPositionKdTree.Graph kdTreeGraph = graph.toKdTreeGraph();
+        OptimalCameraPositionNaive.Graph naiveGraph = graph.toNaiveGraph();
+        OptimalCameraPositionMDS.Graph mdsGraph = graph.toMdsGraph();
+
+        Node reference = null;
+        int referenceCoverage = 0;
+
+        for (String algorithm : ALGORITHMS) {
+            int resultSize = 1;
+            int coverage;
+            Boolean agrees; // null when the engine has no exact answer to check
 
-        for (String algorithm : algorithms) {
             long startTime = System.nanoTime();
+            long endTime;
 
             switch (algorithm) {
-                case "Minimum Dominating Set":
-                    graph.findMinimumDominatingSet();
+                case "Brute Force Camera Position": {
+                    reference = graph.findOptimalCameraPosition(viewRange);
+                    endTime = System.nanoTime();
+
+                    referenceCoverage = reference == null ? 0
+                            : graph.countCoveredNodes(reference.x, reference.y, reference.z, viewRange);
+                    coverage = referenceCoverage;
+                    agrees = true;
                     break;
-                case "Naive Camera Position":
-                    graph.findOptimalCameraPositionNaive(viewRange);
+                }
+                case "Naive Camera Position": {
+                    OptimalCameraPositionNaive.Node position = naiveGraph.findOptimalCameraPositionHierarchical(viewRange,
+                            GRID_STEP);
+                    endTime = System.nanoTime();
+
+                    coverage = position == null ? 0 : graph.countCoveredNodes(position.x, position.y, position.z, viewRange);
+                    agrees = null;
                     break;
-                case "KD-Tree Camera Position":
-                    graph.findOptimalCameraPositionKdTree(viewRange);
+                }
+                case "KD-Tree Camera Position": {
+                    kdTreeGraph.buildKDTree();
+                    OptimalCameraPositionKdTree.Node position = kdTreeGraph.findOptimalCameraPosition(viewRange);
+                    endTime = System.nanoTime();
+
+                    coverage = position == null ? 0 : graph.countCoveredNodes(position.x, position.y, position.z, viewRange);
+                    agrees = position == null ? reference == null
+                            : reference != null && position.id == reference.id && coverage == referenceCoverage;
                     break;
+                }
+                case "Minimum Dominating Set": {
+                    mdsGraph.buildGraph(viewRange);
+                    Set<Integer> dominatingSet = mdsGraph.findMinimumDominatingSet();
+                    endTime = System.nanoTime();
+
+                    resultSize = dominatingSet.size();
+                    coverage = graph.countDominatedNodes(dominatingSet);
+                    agrees = coverage == graph.nodes.size() && dominatingSet.equals(graph.findMinimumDominatingSet());
+                    break;
+                }
                 default:
                     throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
             }
 
-            long endTime = System.nanoTime();
-
             // Calculate runtime in milliseconds
             double runtimeMs = (endTime - startTime) / 1_000_000.0;
+            int coverageTarget = algorithm.equals("Minimum Dominating Set") ? graph.nodes.size() : referenceCoverage;
+            double coverageRatio = coverageTarget == 0 ? 1.0 : (double) coverage / coverageTarget;
+
+            csvWriter.append(String.format("%d,%d,%s,%.2f,%d,%d,%.4f,%s\n", trialNum, graph.nodes.size(), algorithm,
+                    runtimeMs, resultSize, coverage, coverageRatio, agrees == null ? "" : agrees.toString()));
+
+            Summary summary = summaries.get(algorithm);
+            summary.runs++;
+            summary.totalRuntimeMs += runtimeMs;
+            summary.totalCoverage += coverage;
+            summary.totalCoverageRatio += coverageRatio;
+            if (agrees != null) {
+                summary.checks++;
+                if (agrees) summary.agreements++;
+            }
 
-            csvWriter.append(String.format("%d,%d,%s,%.2f\n", trialNum,
-                    graph.nodes.size(), algorithm, runtimeMs));
-
-            System.out.printf("Trial %d | Node Size: %d | Algorithm: %s | Runtime: %.2f ms%n",
-                    trialNum, graph.nodes.size(), algorithm, runtimeMs);
+            System.out.printf("Trial %d | Node Size: %d | Algorithm: %s | Runtime: %.2f ms | Coverage: %d (%.3f) | Agrees: %s%n",
+                    trialNum, graph.nodes.size(), algorithm, runtimeMs, coverage, coverageRatio,
+                    agrees == null ? "n/a" : agrees.toString());
         }
     }
 }
\ No newline at end of file
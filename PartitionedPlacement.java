@@ -0,0 +1,526 @@
+package DaaProject;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+// Region-partitioned placement. Sites are split into rectangular tiles over the two widest
+// Cartesian axes (each tile spans the full extent of the third). A tile owns the sites inside
+// it and also receives, read-only, every site within viewRange of its borders (the halo), so
+// the neighbourhood of each owned site is complete inside the tile. Tiles are solved
+// independently, either on threads or in separate local worker JVMs that exchange tile files
+// through a scratch directory, and the coordinator merges the results:
+//
+// - Optimal position: each tile reports its best owned site with the exact coverage count,
+//   so the maximum over tiles is the global optimum. Ties go to the lowest position in the
+//   site arrays, as in the single-process engines.
+// - Dominating set: each tile greedily dominates its owned sites, choosing from owned and
+//   halo sites alike. The union dominates every site; neighbouring tiles can pick overlapping
+//   dominators near their shared border, so a fix-up pass drops border dominators whose
+//   whole neighbourhood is still dominated by the others.
+public final class PartitionedPlacement {
+
+    private static final int TILE_MAGIC = 0x54494C45;   // "TILE"
+    private static final int RESULT_MAGIC = 0x54524553; // "TRES"
+    private static final int VERSION = 1;
+    private static final int IO_BUFFER_BYTES = 1 << 20;
+
+    enum Mode {
+        THREADS,
+        PROCESSES
+    }
+
+    // Sites handed to one worker: owned sites first, then the halo
+    static final class Tile {
+        final int number;
+        final double viewRange;
+        int size, owned;
+        int[] index; // position in the partitioned SiteArrays
+        double[] xs, ys, zs;
+
+        Tile(int number, double viewRange, int capacity) {
+            this.number = number;
+            this.viewRange = viewRange;
+            index = new int[capacity];
+            xs = new double[capacity];
+            ys = new double[capacity];
+            zs = new double[capacity];
+        }
+
+        void add(int i, double x, double y, double z) {
+            index[size] = i;
+            xs[size] = x;
+            ys[size] = y;
+            zs[size] = z;
+            size++;
+        }
+    }
+
+    static final class TileResult {
+        int bestIndex = -1; // position in the partitioned SiteArrays, -1 for an empty tile
+        int bestCount;
+        int[] dominators = new int[0];
+    }
+
+    static final class Result {
+        int optimalIndex = -1;
+        int optimalCount;
+        int[] dominatingSet;   // positions in the partitioned SiteArrays, ascending
+        int prunedDominators;  // removed by the border fix-up
+        int tiles;
+        long elapsedNanos;
+    }
+
+    final SiteArrays sites;
+    final double viewRange;
+    final int tilesPerAxis;
+
+    // Tiling: the two widest axes (0 = x, 1 = y, 2 = z), their minimums and tile widths
+    private int axisA, axisB;
+    private double minA, minB, widthA, widthB;
+
+    PartitionedPlacement(SiteArrays sites, double viewRange, int tilesPerAxis) {
+        if (!(viewRange > 0)) throw new IllegalArgumentException("View range must be positive: " + viewRange);
+        if (tilesPerAxis < 1) throw new IllegalArgumentException("Tiles per axis must be at least 1: " + tilesPerAxis);
+        this.sites = sites;
+        this.viewRange = viewRange;
+        this.tilesPerAxis = tilesPerAxis;
+        chooseAxes();
+    }
+
+    private void chooseAxes() {
+        double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < sites.size; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                double value = coordinate(i, axis);
+                min[axis] = Math.min(min[axis], value);
+                max[axis] = Math.max(max[axis], value);
+            }
+        }
+
+        // Drop the axis with the smallest extent
+        int narrowest = 0;
+        for (int axis = 1; axis < 3; axis++) {
+            if (max[axis] - min[axis] < max[narrowest] - min[narrowest]) narrowest = axis;
+        }
+        axisA = narrowest == 0 ? 1 : 0;
+        axisB = narrowest == 2 ? 1 : 2;
+
+        minA = sites.size == 0 ? 0 : min[axisA];
+        minB = sites.size == 0 ? 0 : min[axisB];
+        widthA = sites.size == 0 ? 1 : Math.max((max[axisA] - minA) / tilesPerAxis, Double.MIN_NORMAL);
+        widthB = sites.size == 0 ? 1 : Math.max((max[axisB] - minB) / tilesPerAxis, Double.MIN_NORMAL);
+    }
+
+    private double coordinate(int i, int axis) {
+        return axis == 0 ? sites.xs[i] : axis == 1 ? sites.ys[i] : sites.zs[i];
+    }
+
+    private int tileColumn(double value, double min, double width) {
+        return Math.min(tilesPerAxis - 1, Math.max(0, (int) Math.floor((value - min) / width)));
+    }
+
+    private int ownerTile(int i) {
+        return tileColumn(coordinate(i, axisA), minA, widthA) * tilesPerAxis
+                + tileColumn(coordinate(i, axisB), minB, widthB);
+    }
+
+    // Splits the sites into tiles with their halos. Owned and halo sites each keep the order
+    // of the SiteArrays.
+    List<Tile> partition() {
+        int tileCount = tilesPerAxis * tilesPerAxis;
+        int[] sizes = new int[tileCount];
+        int[] owner = new int[sites.size];
+
+        // First pass: count owned and halo sites per tile
+        for (int i = 0; i < sites.size; i++) {
+            owner[i] = ownerTile(i);
+            forEachTileInReach(i, tile -> sizes[tile]++);
+        }
+
+        List<Tile> tiles = new ArrayList<>(tileCount);
+        for (int t = 0; t < tileCount; t++) tiles.add(new Tile(t, viewRange, sizes[t]));
+
+        // Second pass: owned sites, then halo sites
+        for (int i = 0; i < sites.size; i++) {
+            tiles.get(owner[i]).add(i, sites.xs[i], sites.ys[i], sites.zs[i]);
+        }
+        for (Tile tile : tiles) tile.owned = tile.size;
+        for (int i = 0; i < sites.size; i++) {
+            int site = i, home = owner[i];
+            forEachTileInReach(i, tile -> {
+                if (tile != home) {
+                    tiles.get(tile).add(site, sites.xs[site], sites.ys[site], sites.zs[site]);
+                }
+            });
+        }
+        return tiles;
+    }
+
+    // Visits every tile whose region, grown by viewRange, contains site i
+    private void forEachTileInReach(int i, IntConsumer visitor) {
+        double a = coordinate(i, axisA), b = coordinate(i, axisB);
+        int firstA = tileColumn(a - viewRange, minA, widthA), lastA = tileColumn(a + viewRange, minA, widthA);
+        int firstB = tileColumn(b - viewRange, minB, widthB), lastB = tileColumn(b + viewRange, minB, widthB);
+        for (int ta = firstA; ta <= lastA; ta++) {
+            for (int tb = firstB; tb <= lastB; tb++) {
+                visitor.accept(ta * tilesPerAxis + tb);
+            }
+        }
+    }
+
+    Result run(Mode mode, int workers) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<Tile> tiles = partition();
+        List<TileResult> tileResults = mode == Mode.THREADS ? solveOnThreads(tiles, workers)
+                : solveInProcesses(tiles, workers);
+
+        Result result = new Result();
+        result.tiles = tiles.size();
+
+        // Exact merge of the per-tile optima
+        for (TileResult tileResult : tileResults) {
+            if (tileResult.bestIndex < 0) continue;
+            if (result.optimalIndex < 0 || tileResult.bestCount > result.optimalCount
+                    || tileResult.bestCount == result.optimalCount && tileResult.bestIndex < result.optimalIndex) {
+                result.optimalIndex = tileResult.bestIndex;
+                result.optimalCount = tileResult.bestCount;
+            }
+        }
+
+        // Union of the per-tile dominating sets; a halo pick can be chosen by several tiles
+        boolean[] chosen = new boolean[sites.size];
+        for (TileResult tileResult : tileResults) {
+            for (int dominator : tileResult.dominators) chosen[dominator] = true;
+        }
+        result.prunedDominators = pruneBorderDominators(chosen);
+
+        int count = 0;
+        for (boolean c : chosen) if (c) count++;
+        result.dominatingSet = new int[count];
+        count = 0;
+        for (int i = 0; i < sites.size; i++) if (chosen[i]) result.dominatingSet[count++] = i;
+
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // Fix-up pass: a dominator within 2 * viewRange of its tile's border may share its whole
+    // neighbourhood with dominators picked by the neighbouring tiles. Such dominators are
+    // removed one at a time, in site order, while every site they cover stays dominated.
+    // Returns the number removed.
+    private int pruneBorderDominators(boolean[] chosen) {
+        SpatialHashGrid grid = new SpatialHashGrid(sites, viewRange);
+
+        // Number of chosen dominators in each site's closed neighbourhood
+        int[] dominatedBy = new int[sites.size];
+        for (int i = 0; i < sites.size; i++) {
+            if (chosen[i]) grid.forEachInRange(sites.xs[i], sites.ys[i], sites.zs[i], viewRange, v -> dominatedBy[v]++);
+        }
+
+        int pruned = 0;
+        boolean[] redundant = new boolean[1];
+        for (int i = 0; i < sites.size; i++) {
+            if (!chosen[i] || !nearTileBorder(i)) continue;
+
+            redundant[0] = true;
+            grid.forEachInRange(sites.xs[i], sites.ys[i], sites.zs[i], viewRange, v -> {
+                if (dominatedBy[v] < 2) redundant[0] = false;
+            });
+            if (!redundant[0]) continue;
+
+            chosen[i] = false;
+            grid.forEachInRange(sites.xs[i], sites.ys[i], sites.zs[i], viewRange, v -> dominatedBy[v]--);
+            pruned++;
+        }
+        return pruned;
+    }
+
+    private boolean nearTileBorder(int i) {
+        double reach = 2 * viewRange;
+        double a = coordinate(i, axisA), b = coordinate(i, axisB);
+        return tileColumn(a - reach, minA, widthA) != tileColumn(a + reach, minA, widthA)
+                || tileColumn(b - reach, minB, widthB) != tileColumn(b + reach, minB, widthB);
+    }
+
+    private static List<TileResult> solveOnThreads(List<Tile> tiles, int workers) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workers));
+        try {
+            List<Future<TileResult>> futures = new ArrayList<>();
+            for (Tile tile : tiles) futures.add(executor.submit(() -> solveTile(tile)));
+
+            List<TileResult> results = new ArrayList<>();
+            for (Future<TileResult> future : futures) results.add(future.get());
+            return results;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tile failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Writes each tile to a scratch directory and runs it in a worker JVM started with this
+    // JVM's classpath, keeping at most `workers` processes alive at once
+    private static List<TileResult> solveInProcesses(List<Tile> tiles, int workers)
+            throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("placement-tiles");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workers));
+        try {
+            List<Future<TileResult>> futures = new ArrayList<>();
+            for (Tile tile : tiles) {
+                Path input = directory.resolve("tile-" + tile.number + ".bin");
+                Path output = directory.resolve("tile-" + tile.number + ".result");
+                writeTile(tile, input);
+
+                futures.add(executor.submit(() -> {
+                    Process process = new ProcessBuilder(java, "-cp", classpath, PartitionedPlacement.class.getName(),
+                            "--worker", input.toString(), output.toString())
+                            .redirectErrorStream(true)
+                            .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                            .start();
+                    int exitCode = process.waitFor();
+                    if (exitCode != 0) throw new IOException("Worker for tile " + tile.number + " exited with " + exitCode);
+                    return readResult(output);
+                }));
+            }
+
+            List<TileResult> results = new ArrayList<>();
+            for (Future<TileResult> future : futures) results.add(future.get());
+            return results;
+        } catch (ExecutionException e) {
+            throw new IOException("Tile failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // Solves one tile: exact coverage counts for the owned sites, and a lazy greedy that
+    // dominates the owned sites using owned and halo sites as candidates
+    static TileResult solveTile(Tile tile) {
+        TileResult result = new TileResult();
+        int size = tile.size, owned = tile.owned;
+        double range = tile.viewRange;
+        if (owned == 0) return result;
+
+        SpatialHashGrid grid = new SpatialHashGrid(SiteColumns.of(tile.xs, tile.ys, tile.zs, size), range);
+
+        // Closed neighbourhoods of all tile sites, in CSR form
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + grid.rangeCount(tile.xs[i], tile.ys[i], tile.zs[i], range);
+        }
+        int[] neighbours = new int[offsets[size]];
+        int[] cursor = new int[1];
+        for (int i = 0; i < size; i++) {
+            cursor[0] = offsets[i];
+            grid.forEachInRange(tile.xs[i], tile.ys[i], tile.zs[i], range, v -> neighbours[cursor[0]++] = v);
+        }
+
+        // Owned sites see their complete neighbourhood, so their degrees are exact counts. They
+        // are in site order, so the first maximum is also the lowest position.
+        int best = 0;
+        for (int i = 1; i < owned; i++) {
+            if (offsets[i + 1] - offsets[i] > offsets[best + 1] - offsets[best]) best = i;
+        }
+        result.bestIndex = tile.index[best];
+        result.bestCount = offsets[best + 1] - offsets[best];
+
+        // Gain of a candidate: owned sites in its closed neighbourhood that are not yet dominated
+        int[] gain = new int[size];
+        for (int c = 0; c < size; c++) {
+            for (int p = offsets[c]; p < offsets[c + 1]; p++) {
+                if (neighbours[p] < owned) gain[c]++;
+            }
+        }
+
+        LongMaxHeap heap = new LongMaxHeap(size);
+        for (int c = 0; c < size; c++) {
+            if (gain[c] > 0) heap.push(LongMaxHeap.entry(gain[c], c));
+        }
+
+        boolean[] dominated = new boolean[owned];
+        int remaining = owned;
+        int[] dominators = new int[Math.min(size, owned)];
+        int dominatorCount = 0;
+        while (remaining > 0) {
+            long top = heap.pop();
+            int c = LongMaxHeap.node(top);
+            if (LongMaxHeap.gain(top) != gain[c]) {
+                // Stale entry: reinsert with the current gain
+                if (gain[c] > 0) heap.push(LongMaxHeap.entry(gain[c], c));
+                continue;
+            }
+
+            dominators[dominatorCount++] = tile.index[c];
+            for (int p = offsets[c]; p < offsets[c + 1]; p++) {
+                int v = neighbours[p];
+                if (v >= owned || dominated[v]) continue;
+                dominated[v] = true;
+                remaining--;
+                for (int q = offsets[v]; q < offsets[v + 1]; q++) gain[neighbours[q]]--;
+            }
+        }
+        result.dominators = Arrays.copyOf(dominators, dominatorCount);
+        return result;
+    }
+
+
+    // Tile file (little-endian): int magic, int version, double viewRange, int number, int size,
+    // int owned, then the index, x, y and z columns. Tile and result files are streamed through
+    // a fixed buffer, so their size is not bounded by a single array.
+    static void writeTile(Tile tile, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(TILE_MAGIC).putInt(VERSION).putDouble(tile.viewRange)
+                    .putInt(tile.number).putInt(tile.size).putInt(tile.owned);
+            writeColumn(channel, buffer, tile.index, tile.size);
+            for (double[] column : new double[][]{tile.xs, tile.ys, tile.zs}) {
+                for (int i = 0; i < tile.size; i++) {
+                    if (buffer.remaining() < Double.BYTES) drain(channel, buffer);
+                    buffer.putDouble(column[i]);
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    static Tile readTile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            require(channel, buffer, 28, path);
+            if (buffer.getInt() != TILE_MAGIC) throw new IOException("Not a tile file: " + path);
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported tile file version " + version + ": " + path);
+
+            double viewRange = buffer.getDouble();
+            int number = buffer.getInt(), size = buffer.getInt();
+            Tile tile = new Tile(number, viewRange, size);
+            tile.size = size;
+            tile.owned = buffer.getInt();
+            readColumn(channel, buffer, tile.index, size, path);
+            for (double[] column : new double[][]{tile.xs, tile.ys, tile.zs}) {
+                for (int i = 0; i < size; i++) {
+                    require(channel, buffer, Double.BYTES, path);
+                    column[i] = buffer.getDouble();
+                }
+            }
+            return tile;
+        }
+    }
+
+    // Result file (little-endian): int magic, int bestIndex, int bestCount, int dominator count,
+    // then the dominators
+    static void writeResult(TileResult result, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(RESULT_MAGIC).putInt(result.bestIndex).putInt(result.bestCount).putInt(result.dominators.length);
+            writeColumn(channel, buffer, result.dominators, result.dominators.length);
+            drain(channel, buffer);
+        }
+    }
+
+    static TileResult readResult(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            require(channel, buffer, 16, path);
+            if (buffer.getInt() != RESULT_MAGIC) throw new IOException("Not a tile result file: " + path);
+
+            TileResult result = new TileResult();
+            result.bestIndex = buffer.getInt();
+            result.bestCount = buffer.getInt();
+            result.dominators = new int[buffer.getInt()];
+            readColumn(channel, buffer, result.dominators, result.dominators.length, path);
+            return result;
+        }
+    }
+
+    private static void writeColumn(FileChannel channel, ByteBuffer buffer, int[] column, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < Integer.BYTES) drain(channel, buffer);
+            buffer.putInt(column[i]);
+        }
+    }
+
+    private static void readColumn(FileChannel channel, ByteBuffer buffer, int[] column, int count, Path path)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            require(channel, buffer, Integer.BYTES, path);
+            column[i] = buffer.getInt();
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    // Makes at least `bytes` unread bytes available in the buffer, which is kept in read mode
+    private static void require(FileChannel channel, ByteBuffer buffer, int bytes, Path path) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) throw new EOFException("Truncated file: " + path);
+        }
+        buffer.flip();
+    }
+
+    // Usage: PartitionedPlacement <sites file> <viewRange> [tilesPerAxis] [threads|processes] [workers]
+    // Worker JVMs are started as: PartitionedPlacement --worker <tile file> <result file>
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 3 && args[0].equals("--worker")) {
+            writeResult(solveTile(readTile(Paths.get(args[1]))), Paths.get(args[2]));
+            return;
+        }
+        if (args.length < 2) {
+            System.out.println("Usage: PartitionedPlacement <sites file> <viewRange> [tilesPerAxis] [threads|processes] [workers]");
+            return;
+        }
+
+        double viewRange = Double.parseDouble(args[1]);
+        int tilesPerAxis = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        Mode mode = args.length > 3 ? Mode.valueOf(args[3].toUpperCase()) : Mode.THREADS;
+        int workers = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        SiteArrays sites = SiteLoader.load(Paths.get(args[0]));
+        sites.sortAlongHilbertCurve();
+        Result result = new PartitionedPlacement(sites, viewRange, tilesPerAxis).run(mode, workers);
+
+        System.out.printf("Partitioned %d sites into %d tiles (%s, %d workers) in %.1f ms%n", sites.size,
+                result.tiles, mode, workers, result.elapsedNanos / 1e6);
+        if (result.optimalIndex >= 0) {
+            System.out.println("Optimal camera position: Node " + sites.ids[result.optimalIndex]
+                    + " covering " + result.optimalCount + " nodes");
+        }
+        System.out.println("Dominating set size: " + result.dominatingSet.length
+                + " (" + result.prunedDominators + " border dominators pruned)");
+    }
+}
@@ -0,0 +1,264 @@
+package DaaProject;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+// Benchmark harness for the placement engines. Every combination of benchmark, size, view range
+// and site distribution runs a number of untimed warmup invocations followed by timed measurement
+// invocations on inputs built outside the timed region, and the samples are written as JSON.
+// This is a plain in-process timing loop, not JMH: there is no forking and no JMH blackhole, so
+// its numbers are only comparable with other runs of this harness.
+//
+// The default sweep (n = 1000 and 10000) finishes in minutes. Larger sizes, up to each
+// benchmark's cap, are opt-in through --n, for example --n 1000000,10000000.
+//
+// Usage: PlacementBenchmark [--benchmarks a,b] [--n 1000,10000] [--viewRange 5,10]
+//                           [--distribution uniform,gaussian_clusters,city_grid,road_corridors]
+//                           [--order input,hilbert] [--density 0.1]
+//                           [--warmup 2] [--iterations 5] [--seed 42] [--out file.json]
+public class PlacementBenchmark {
+
+    // Sites per square kilometre; keeps neighbourhood sizes fixed as n grows
+    static final double DEFAULT_DENSITY = 0.1;
+
+    // Each benchmark has a size cap so the quadratic engines are not run at sizes they cannot finish
+    enum Benchmark {
+        BRUTE_OPTIMAL(20_000),           // n^2 distance evaluations per invocation
+        KDTREE_OPTIMAL(10_000_000),
+        KDTREE_DUAL_OPTIMAL(10_000_000),
+        NAIVE_OPTIMAL(10_000),
+        KDTREE_BUILD(10_000_000),
+        MDS_BUILD_GRAPH(10_000_000),
+        MDS_DOMINATING_SET(20_000),      // full-scan greedy: every round scans every node
+        MDS_DOMINATING_SET_LAZY(10_000_000);
+
+        final int maxSize;
+
+        Benchmark(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    // Order of the sites handed to the engines
+    enum SiteOrder {
+        // As generated
+        INPUT,
+        // Sorted along a Hilbert curve before the graphs are built
+        HILBERT
+    }
+
+    // Prepared state for one benchmark run; only run() is timed
+    interface Fixture {
+        long run();
+    }
+
+    static class Result {
+        Benchmark benchmark;
+        int n;
+        double viewRange;
+        WorkloadGenerator.Distribution distribution;
+        SiteOrder order;
+        int warmupIterations;
+        double[] samplesMs;
+
+        double mean() {
+            double sum = 0;
+            for (double sample : samplesMs) sum += sample;
+            return sum / samplesMs.length;
+        }
+
+        double standardDeviation() {
+            if (samplesMs.length < 2) return 0;
+            double mean = mean(), sum = 0;
+            for (double sample : samplesMs) sum += (sample - mean) * (sample - mean);
+            return Math.sqrt(sum / (samplesMs.length - 1));
+        }
+    }
+
+    // Consumes benchmark results so the JIT cannot discard the work
+    static volatile long blackhole;
+
+    // Build the engine's graph outside the timed region and return the operation to time
+    static Fixture prepare(Benchmark benchmark, SiteArrays sites, double viewRange) {
+        switch (benchmark) {
+            case BRUTE_OPTIMAL: {
+                OptimalCameraPositionBrute.Graph graph = OptimalCameraPositionBrute.Graph.fromSites(sites);
+                return () -> graph.findOptimalCameraPosition(viewRange).id;
+            }
+            case KDTREE_OPTIMAL: {
+                OptimalCameraPositionKdTree.Graph graph = OptimalCameraPositionKdTree.Graph.fromSites(sites);
+                graph.buildKDTree();
+                return () -> graph.findOptimalCameraPosition(viewRange).id;
+            }
+            case KDTREE_DUAL_OPTIMAL: {
+                OptimalCameraPositionKdTree.Graph graph = OptimalCameraPositionKdTree.Graph.fromSites(sites);
+                graph.buildKDTree();
+                return () -> graph.findOptimalCameraPositionDualTree(viewRange).id;
+            }
+            case NAIVE_OPTIMAL: {
+                OptimalCameraPositionNaive.Graph graph = OptimalCameraPositionNaive.Graph.fromSites(sites);
+                double gridStep = viewRange / 4;
+                return () -> graph.findOptimalCameraPosition(viewRange, gridStep,
+                        OptimalCameraPositionNaive.CandidateStrategy.SURFACE_SHELL).id;
+            }
+            case KDTREE_BUILD: {
+                OptimalCameraPositionKdTree.Graph graph = OptimalCameraPositionKdTree.Graph.fromSites(sites);
+                return () -> {
+                    graph.buildKDTree();
+                    return graph.kdTree.size;
+                };
+            }
+            case MDS_BUILD_GRAPH: {
+                OptimalCameraPositionMDS.Graph graph = OptimalCameraPositionMDS.Graph.fromSites(sites);
+                return () -> {
+                    graph.buildGraph(viewRange);
+                    return graph.nodes.size();
+                };
+            }
+            case MDS_DOMINATING_SET: {
+                OptimalCameraPositionMDS.Graph graph = OptimalCameraPositionMDS.Graph.fromSites(sites);
+                graph.buildGraph(viewRange);
+                return () -> graph.findMinimumDominatingSet().size();
+            }
+            case MDS_DOMINATING_SET_LAZY: {
+                OptimalCameraPositionMDS.Graph graph = OptimalCameraPositionMDS.Graph.fromSites(sites);
+                graph.buildGraph(viewRange);
+                return () -> graph.findMinimumDominatingSetLazy().size();
+            }
+            default:
+                throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+        }
+    }
+
+    static Result measure(Benchmark benchmark, SiteArrays sites, double viewRange,
+                          WorkloadGenerator.Distribution distribution, SiteOrder order,
+                          int warmupIterations, int measurementIterations) {
+        Fixture fixture = prepare(benchmark, sites, viewRange);
+
+        for (int i = 0; i < warmupIterations; i++) {
+            blackhole += fixture.run();
+        }
+
+        double[] samples = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            long startTime = System.nanoTime();
+            blackhole += fixture.run();
+            samples[i] = (System.nanoTime() - startTime) / 1_000_000.0;
+        }
+
+        Result result = new Result();
+        result.benchmark = benchmark;
+        result.n = sites.size();
+        result.viewRange = viewRange;
+        result.distribution = distribution;
+        result.order = order;
+        result.warmupIterations = warmupIterations;
+        result.samplesMs = samples;
+        return result;
+    }
+
+    static void writeJson(List<Result> results, String path) throws IOException {
+        try (FileWriter writer = new FileWriter(path)) {
+            writer.append("[\n");
+            for (int r = 0; r < results.size(); r++) {
+                Result result = results.get(r);
+                writer.append("  {\n");
+                writer.append("    \"benchmark\": \"").append(result.benchmark.name()).append("\",\n");
+                writer.append("    \"harness\": \"PlacementBenchmark\",\n");
+                writer.append("    \"params\": {\"n\": ").append(String.valueOf(result.n))
+                        .append(", \"viewRange\": ").append(String.valueOf(result.viewRange))
+                        .append(", \"distribution\": \"").append(result.distribution.name())
+                        .append("\", \"order\": \"").append(result.order.name()).append("\"},\n");
+                writer.append("    \"warmupIterations\": ").append(String.valueOf(result.warmupIterations)).append(",\n");
+                writer.append("    \"measurementIterations\": ").append(String.valueOf(result.samplesMs.length)).append(",\n");
+                writer.append("    \"unit\": \"ms/op\",\n");
+                writer.append("    \"score\": ").append(String.valueOf(result.mean())).append(",\n");
+                writer.append("    \"scoreStdDev\": ").append(String.valueOf(result.standardDeviation())).append(",\n");
+                writer.append("    \"samples\": [");
+                for (int i = 0; i < result.samplesMs.length; i++) {
+                    if (i > 0) writer.append(", ");
+                    writer.append(String.valueOf(result.samplesMs[i]));
+                }
+                writer.append("]\n");
+                writer.append(r + 1 < results.size() ? "  },\n" : "  }\n");
+            }
+            writer.append("]\n");
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected an option, found " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseArgs(args);
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        for (String name : options.getOrDefault("benchmarks", "").split(",")) {
+            if (!name.isEmpty()) benchmarks.add(Benchmark.valueOf(name.trim().toUpperCase()));
+        }
+        if (benchmarks.isEmpty()) benchmarks.addAll(Arrays.asList(Benchmark.values()));
+
+        List<Integer> sizes = new ArrayList<>();
+        for (String size : options.getOrDefault("n", "1000,10000").split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+        }
+
+        List<Double> viewRanges = new ArrayList<>();
+        for (String viewRange : options.getOrDefault("viewRange", "10").split(",")) {
+            viewRanges.add(Double.parseDouble(viewRange.trim()));
+        }
+
+        List<WorkloadGenerator.Distribution> distributions = new ArrayList<>();
+        for (String name : options.getOrDefault("distribution", "uniform,gaussian_clusters,city_grid,road_corridors").split(",")) {
+            distributions.add(WorkloadGenerator.Distribution.valueOf(name.trim().toUpperCase()));
+        }
+
+        List<SiteOrder> orders = new ArrayList<>();
+        for (String name : options.getOrDefault("order", "input,hilbert").split(",")) {
+            orders.add(SiteOrder.valueOf(name.trim().toUpperCase()));
+        }
+
+        double density = Double.parseDouble(options.getOrDefault("density", String.valueOf(DEFAULT_DENSITY)));
+        int warmupIterations = Integer.parseInt(options.getOrDefault("warmup", "2"));
+        int measurementIterations = Integer.parseInt(options.getOrDefault("iterations", "5"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        String out = options.getOrDefault("out", "placement-benchmark.json");
+
+        List<Result> results = new ArrayList<>();
+        for (WorkloadGenerator.Distribution distribution : distributions) {
+            for (int n : sizes) {
+                for (SiteOrder order : orders) {
+                    SiteArrays sites = null;
+                    for (Benchmark benchmark : benchmarks) {
+                        if (n > benchmark.maxSize) {
+                            System.out.printf("%-24s n=%-9d skipped (above size cap %d)%n", benchmark, n, benchmark.maxSize);
+                            continue;
+                        }
+                        if (sites == null) {
+                            sites = new WorkloadGenerator(seed, density).generate(distribution, n).toSiteArrays();
+                            if (order == SiteOrder.HILBERT) sites.sortAlongHilbertCurve();
+                        }
+
+                        for (double viewRange : viewRanges) {
+                            Result result = measure(benchmark, sites, viewRange, distribution, order, warmupIterations,
+                                    measurementIterations);
+                            results.add(result);
+                            System.out.printf("%-24s n=%-9d r=%-5.1f %-17s %-7s %12.3f ms/op (sd %.3f)%n", benchmark, n,
+                                    viewRange, distribution, order, result.mean(), result.standardDeviation());
+                        }
+                    }
+                }
+            }
+        }
+
+        writeJson(results, out);
+        System.out.println("Benchmark results written to " + out);
+    }
+}
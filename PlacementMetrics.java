@@ -0,0 +1,211 @@
+package DaaProject;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Opt-in counters and latency histograms for the placement hot paths. Everything is gated on
+// ENABLED, a static final read once from -Ddaa.metrics, so when metrics are off the JIT folds the
+// checks away and the instrumented code runs as before. When on, the metrics are published over
+// JMX and, if -Ddaa.metrics.report=<file> is set, written as JSON when the JVM exits.
+//
+// Usage at an instrumented site:
+//     long start = PlacementMetrics.start();
+//     ...
+//     PlacementMetrics.record(PlacementMetrics.Phase.TREE_BUILD, start);
+//
+// Phases run once per query on a hot path (single range queries) start with sampledStart()
+// instead, so only a sample of them pays for the clock reads and the histogram update.
+public final class PlacementMetrics implements PlacementMetricsMXBean {
+
+    static final boolean ENABLED = Boolean.getBoolean("daa.metrics");
+
+    enum Phase {
+        TREE_BUILD,
+        RANGE_QUERY,      // single range queries, sampled one in QUERY_SAMPLE_RATE
+        ALL_RANGE_COUNTS, // dual-tree range counts of every point
+        OPTIMAL_SEARCH,
+        GRAPH_BUILD,
+        DOMINATING_SET
+    }
+
+    // Tree nodes whose point was examined by a range query
+    static final LongAdder NODES_VISITED = new LongAdder();
+    // Point-to-point distance computations, in the tree and in the brute-force scans
+    static final LongAdder DISTANCE_EVALUATIONS = new LongAdder();
+    // Far subtrees skipped because the splitting plane is beyond the view range
+    static final LongAdder SUBTREES_PRUNED = new LongAdder();
+    // Nodes picked by the dominating set greedy
+    static final LongAdder GREEDY_ROUNDS = new LongAdder();
+    // Heap entries popped with an out-of-date gain and re-queued
+    static final LongAdder STALE_HEAP_POPS = new LongAdder();
+
+    static final int QUERY_SAMPLE_RATE = 64;
+
+    private static final int BUCKETS = 64;
+
+    // Bucket b counts runs that took [2^b, 2^(b+1)) nanoseconds
+    private static final class Histogram {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        Histogram() {
+            for (int b = 0; b < BUCKETS; b++) buckets[b] = new LongAdder();
+        }
+
+        void record(long nanos) {
+            nanos = Math.max(1, nanos);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets[63 - Long.numberOfLeadingZeros(nanos)].increment();
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (LongAdder bucket : buckets) bucket.reset();
+        }
+    }
+
+    private static final Histogram[] HISTOGRAMS = new Histogram[Phase.values().length];
+
+    static final PlacementMetrics INSTANCE = new PlacementMetrics();
+
+    static {
+        for (int p = 0; p < HISTOGRAMS.length; p++) HISTOGRAMS[p] = new Histogram();
+
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(INSTANCE, new ObjectName("DaaProject:type=PlacementMetrics"));
+            } catch (JMException e) {
+                System.err.println("Placement metrics not published over JMX: " + e);
+            }
+
+            String reportPath = System.getProperty("daa.metrics.report");
+            if (reportPath != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try (FileWriter writer = new FileWriter(reportPath)) {
+                        writer.append(INSTANCE.getReport());
+                    } catch (IOException e) {
+                        System.err.println("Could not write placement metrics to " + reportPath + ": " + e);
+                    }
+                }));
+            }
+        }
+    }
+
+    private PlacementMetrics() {
+    }
+
+    // Start time for a phase, or 0 when metrics are disabled
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    // Start time for one run of a per-query phase, taken for one call in QUERY_SAMPLE_RATE. The
+    // other calls return 0 and are not recorded.
+    static long sampledStart() {
+        if (!ENABLED || ThreadLocalRandom.current().nextInt(QUERY_SAMPLE_RATE) != 0) return 0L;
+        return System.nanoTime();
+    }
+
+    static void record(Phase phase, long start) {
+        if (ENABLED && start != 0L) HISTOGRAMS[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    @Override
+    public long getNodesVisited() {
+        return NODES_VISITED.sum();
+    }
+
+    @Override
+    public long getDistanceEvaluations() {
+        return DISTANCE_EVALUATIONS.sum();
+    }
+
+    @Override
+    public long getSubtreesPruned() {
+        return SUBTREES_PRUNED.sum();
+    }
+
+    @Override
+    public long getGreedyRounds() {
+        return GREEDY_ROUNDS.sum();
+    }
+
+    @Override
+    public long getStaleHeapPops() {
+        return STALE_HEAP_POPS.sum();
+    }
+
+    @Override
+    public long getPhaseCount(String phase) {
+        return HISTOGRAMS[Phase.valueOf(phase).ordinal()].count.sum();
+    }
+
+    @Override
+    public long getPhaseTotalNanos(String phase) {
+        return HISTOGRAMS[Phase.valueOf(phase).ordinal()].totalNanos.sum();
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"enabled\": ").append(ENABLED).append(",\n");
+        json.append("  \"counters\": {\n");
+        json.append("    \"nodesVisited\": ").append(getNodesVisited()).append(",\n");
+        json.append("    \"distanceEvaluations\": ").append(getDistanceEvaluations()).append(",\n");
+        json.append("    \"subtreesPruned\": ").append(getSubtreesPruned()).append(",\n");
+        json.append("    \"greedyRounds\": ").append(getGreedyRounds()).append(",\n");
+        json.append("    \"staleHeapPops\": ").append(getStaleHeapPops()).append("\n");
+        json.append("  },\n");
+        json.append("  \"phases\": {\n");
+
+        Phase[] phases = Phase.values();
+        for (int p = 0; p < phases.length; p++) {
+            Histogram histogram = HISTOGRAMS[p];
+            json.append("    \"").append(phases[p].name()).append("\": {")
+                    .append("\"count\": ").append(histogram.count.sum())
+                    .append(", \"totalNanos\": ").append(histogram.totalNanos.sum())
+                    .append(", \"maxNanos\": ").append(histogram.maxNanos.get())
+                    .append(", \"histogram\": [");
+
+            // Only non-empty buckets, each with its upper bound
+            boolean first = true;
+            for (int b = 0; b < BUCKETS; b++) {
+                long count = histogram.buckets[b].sum();
+                if (count == 0) continue;
+                if (!first) json.append(", ");
+                json.append("{\"lessThanNanos\": ").append(b == 63 ? Long.MAX_VALUE : 1L << (b + 1))
+                        .append(", \"count\": ").append(count).append('}');
+                first = false;
+            }
+            json.append("]}").append(p + 1 < phases.length ? ",\n" : "\n");
+        }
+
+        json.append("  }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    @Override
+    public void reset() {
+        NODES_VISITED.reset();
+        DISTANCE_EVALUATIONS.reset();
+        SUBTREES_PRUNED.reset();
+        GREEDY_ROUNDS.reset();
+        STALE_HEAP_POPS.reset();
+        for (Histogram histogram : HISTOGRAMS) histogram.reset();
+    }
+}
@@ -0,0 +1,27 @@
+package DaaProject;
+
+// Management interface of PlacementMetrics, registered as DaaProject:type=PlacementMetrics when
+// metrics are enabled with -Ddaa.metrics=true
+public interface PlacementMetricsMXBean {
+
+    long getNodesVisited();
+
+    long getDistanceEvaluations();
+
+    long getSubtreesPruned();
+
+    long getGreedyRounds();
+
+    long getStaleHeapPops();
+
+    // Number of timed runs of a phase (a PlacementMetrics.Phase name)
+    long getPhaseCount(String phase);
+
+    // Total time spent in a phase, in nanoseconds
+    long getPhaseTotalNanos(String phase);
+
+    // Counters and per-phase latency histograms as a JSON document
+    String getReport();
+
+    void reset();
+}
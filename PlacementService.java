@@ -0,0 +1,498 @@
+package DaaProject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Resident placement service. Datasets are loaded once (from a CSV or .sites file, or
+// generated) and kept in memory in Hilbert order together with their k-d tree, so what-if
+// queries with different view ranges only pay for the query itself. Results and the view-range
+// graphs behind /topk and /dominating-set are kept in an LRU cache bounded by entry count and
+// estimated size, keyed by dataset version and view range; reloading a dataset gives it a new
+// version, so stale entries are never served or stored.
+//
+// Endpoints (local HTTP, JSON responses):
+//   POST   /datasets?name=N&path=P                         load a CSV or .sites file
+//   POST   /datasets?name=N&distribution=D&n=K[&seed=S&density=Q]   generate a workload
+//   DELETE /datasets?name=N
+//   GET    /datasets
+//   GET    /optimal?dataset=N&viewRange=R
+//   GET    /topk?dataset=N&viewRange=R&k=K
+//   GET    /dominating-set?dataset=N&viewRange=R
+//   GET    /cache
+public final class PlacementService {
+
+    static final class Dataset {
+        final String name;
+        final long version;
+        final SiteArrays sites;
+        final OptimalCameraPositionKdTree.Graph graph; // nodes in site order, k-d tree built
+        final long loadNanos;
+
+        Dataset(String name, long version, SiteArrays sites, OptimalCameraPositionKdTree.Graph graph, long loadNanos) {
+            this.name = name;
+            this.version = version;
+            this.sites = sites;
+            this.graph = graph;
+            this.loadNanos = loadNanos;
+        }
+    }
+
+    // A camera position: site id, position and the number of sites it covers
+    static final class Placement {
+        final int id;
+        final double lat, lon;
+        final int covered;
+
+        Placement(OptimalCameraPositionKdTree.Node node, int covered) {
+            double[] latLon = OptimalCameraPositionKdTree.Graph.cartesianToLatLon(node.x, node.y, node.z);
+            this.id = node.id;
+            this.lat = latLon[0];
+            this.lon = latLon[1];
+            this.covered = covered;
+        }
+    }
+
+    static final class CacheKey {
+        final String dataset;
+        final long version;
+        final double viewRange;
+        final String kind;
+        final int k;
+
+        CacheKey(Dataset dataset, double viewRange, String kind, int k) {
+            this.dataset = dataset.name;
+            this.version = dataset.version;
+            this.viewRange = viewRange;
+            this.kind = kind;
+            this.k = k;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CacheKey)) return false;
+            CacheKey key = (CacheKey) other;
+            return version == key.version && Double.compare(viewRange, key.viewRange) == 0 && k == key.k
+                    && dataset.equals(key.dataset) && kind.equals(key.kind);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataset, version, viewRange, kind, k);
+        }
+    }
+
+    // LRU cache over an access-ordered LinkedHashMap. Each entry carries an estimate of its size
+    // in bytes; the least recently used entries are evicted while either bound is exceeded.
+    static final class ResultCache {
+        private static final class Entry {
+            final Object value;
+            final long bytes;
+
+            Entry(Object value, long bytes) {
+                this.value = value;
+                this.bytes = bytes;
+            }
+        }
+
+        private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, Long> currentVersions = new HashMap<>();
+        final int maxEntries;
+        final long maxBytes;
+        private long bytes;
+        private long hits, misses, evictions;
+
+        ResultCache(int maxEntries, long maxBytes) {
+            if (maxEntries < 1) throw new IllegalArgumentException("Cache must hold at least one entry: " + maxEntries);
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Object get(CacheKey key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            return entry.value;
+        }
+
+        // Lookup that leaves the hit and miss counters alone
+        synchronized Object peek(CacheKey key) {
+            Entry entry = entries.get(key);
+            return entry == null ? null : entry.value;
+        }
+
+        // An entry larger than the byte bound is not stored at all, nor is one computed for a
+        // dataset version that has since been replaced or unloaded
+        synchronized void put(CacheKey key, Object value, long size) {
+            if (size > maxBytes || !Long.valueOf(key.version).equals(currentVersions.get(key.dataset))) return;
+
+            Entry previous = entries.put(key, new Entry(value, size));
+            if (previous != null) bytes -= previous.bytes;
+            bytes += size;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries || bytes > maxBytes) {
+                bytes -= eldest.next().bytes;
+                eldest.remove();
+                evictions++;
+            }
+        }
+
+        // Drops every entry of the dataset with a version other than keepVersion, which becomes
+        // the only version accepted by put; -1 accepts none
+        synchronized void invalidate(String dataset, long keepVersion) {
+            currentVersions.put(dataset, keepVersion);
+            Iterator<Map.Entry<CacheKey, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<CacheKey, Entry> entry = iterator.next();
+                if (entry.getKey().dataset.equals(dataset) && entry.getKey().version != keepVersion) {
+                    bytes -= entry.getValue().bytes;
+                    iterator.remove();
+                }
+            }
+        }
+
+        synchronized String toJson() {
+            return "{\"entries\": " + entries.size() + ", \"maxEntries\": " + maxEntries
+                    + ", \"bytes\": " + bytes + ", \"maxBytes\": " + maxBytes
+                    + ", \"hits\": " + hits + ", \"misses\": " + misses + ", \"evictions\": " + evictions + "}";
+        }
+    }
+
+    private final Map<String, Dataset> datasets = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    final ResultCache cache;
+
+    PlacementService(int maxCacheEntries, long maxCacheBytes) {
+        cache = new ResultCache(maxCacheEntries, maxCacheBytes);
+    }
+
+    // Makes the sites queryable under the name, replacing any dataset loaded under it before.
+    // The sites are reordered along the Hilbert curve and the k-d tree is built up front.
+    // Registering the dataset and invalidating the cache happen under one lock, so concurrent
+    // loads and unloads of a name leave the registry and the cache on the same version.
+    Dataset load(String name, SiteArrays sites) {
+        long start = System.nanoTime();
+        sites.sortAlongHilbertCurve();
+        OptimalCameraPositionKdTree.Graph graph = OptimalCameraPositionKdTree.Graph.fromSites(sites);
+        graph.buildKDTreeParallel();
+        long loadNanos = System.nanoTime() - start;
+
+        synchronized (datasets) {
+            Dataset dataset = new Dataset(name, versions.incrementAndGet(), sites, graph, loadNanos);
+            datasets.put(name, dataset);
+            cache.invalidate(name, dataset.version);
+            return dataset;
+        }
+    }
+
+    boolean unload(String name) {
+        synchronized (datasets) {
+            Dataset dataset = datasets.remove(name);
+            if (dataset == null) return false;
+            cache.invalidate(name, -1);
+            return true;
+        }
+    }
+
+    Dataset dataset(String name) {
+        Dataset dataset = datasets.get(name);
+        if (dataset == null) throw new NoSuchElementException("Unknown dataset: " + name);
+        return dataset;
+    }
+
+    // The single best camera position, or null for an empty dataset
+    Placement optimal(Dataset dataset, double viewRange) {
+        return cached(dataset, new CacheKey(dataset, viewRange, "optimal", 0), () -> {
+            OptimalCameraPositionKdTree.Graph graph = dataset.graph;
+            OptimalCameraPositionKdTree.Node node = graph.findOptimalCameraPositionDualTree(viewRange);
+            return node == null ? null : new Placement(node, graph.kdTree.rangeCount(node, viewRange));
+        }, placement -> 64);
+    }
+
+    // Up to k positions chosen greedily for the most newly covered sites; `covered` is the
+    // number of sites each position covers on its own
+    List<Placement> topK(Dataset dataset, double viewRange, int k) {
+        return cached(dataset, new CacheKey(dataset, viewRange, "topk", k), () -> {
+            OptimalCameraPositionMDS.CsrGraph graph = adjacencyGraph(dataset, viewRange);
+            List<Placement> placements = new ArrayList<>();
+            for (int v : OptimalCameraPositionMDS.Graph.findGreedyCover(graph, k)) {
+                placements.add(new Placement(dataset.graph.nodes.get(v), graph.degree(v) + 1));
+            }
+            return placements;
+        }, placements -> 64 + 64L * placements.size());
+    }
+
+    // Greedy dominating set over the cached view-range graph, as ascending site ids. A site
+    // dominates itself, and sites that would dominate nothing new are never picked.
+    int[] dominatingSet(Dataset dataset, double viewRange) {
+        return cached(dataset, new CacheKey(dataset, viewRange, "dominating-set", 0), () -> {
+            OptimalCameraPositionMDS.CsrGraph graph = adjacencyGraph(dataset, viewRange);
+            int[] ids = OptimalCameraPositionMDS.Graph.findGreedyCover(graph, graph.size());
+            for (int i = 0; i < ids.length; i++) ids[i] = graph.ids[ids[i]];
+            Arrays.sort(ids);
+            return ids;
+        }, ids -> 16 + 4L * ids.length);
+    }
+
+    // View-range graph of the dataset in CSR form, with ordinals in site order. Sized by its
+    // arrays.
+    private OptimalCameraPositionMDS.CsrGraph adjacencyGraph(Dataset dataset, double viewRange) {
+        return cached(dataset, new CacheKey(dataset, viewRange, "graph", 0), () -> {
+            OptimalCameraPositionMDS.Graph graph = OptimalCameraPositionMDS.Graph.fromSites(dataset.sites);
+            graph.buildGraphParallel(viewRange);
+            return graph.freeze();
+        }, graph -> 64 + 4L * (2L * graph.size() + 1 + graph.neighbors.length));
+    }
+
+    // Serves the key from the cache, or computes it while holding the dataset's lock. The lock
+    // keeps concurrent requests from repeating the same work and serialises use of the
+    // dataset's graph, whose indexes are not thread-safe.
+    @SuppressWarnings("unchecked")
+    private <T> T cached(Dataset dataset, CacheKey key, Supplier<T> compute, ToLongFunction<T> weigher) {
+        Object value = cache.get(key);
+        if (value != null) return (T) value;
+
+        synchronized (dataset) {
+            value = cache.peek(key);
+            if (value != null) return (T) value;
+
+            T result = compute.get();
+            if (result != null) cache.put(key, result, weigher.applyAsLong(result));
+            return result;
+        }
+    }
+
+    // Starts the HTTP endpoint on the loopback interface
+    HttpServer start(int port, int threads) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/datasets", exchange -> handle(exchange, this::datasetsEndpoint));
+        server.createContext("/optimal", exchange -> handle(exchange, this::optimalEndpoint));
+        server.createContext("/topk", exchange -> handle(exchange, this::topKEndpoint));
+        server.createContext("/dominating-set", exchange -> handle(exchange, this::dominatingSetEndpoint));
+        server.createContext("/cache", exchange -> handle(exchange, (method, query) -> cache.toJson()));
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.start();
+        return server;
+    }
+
+    private interface Endpoint {
+        String respond(String method, Map<String, String> query) throws IOException;
+    }
+
+    private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = endpoint.respond(exchange.getRequestMethod(), parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (NoSuchElementException e) {
+            status = 404;
+            body = error(e);
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            status = 400;
+            body = error(e);
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(e);
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String datasetsEndpoint(String method, Map<String, String> query) throws IOException {
+        switch (method) {
+            case "GET": {
+                StringBuilder json = new StringBuilder("{\"datasets\": [");
+                boolean first = true;
+                for (Dataset dataset : datasets.values()) {
+                    if (!first) json.append(", ");
+                    json.append(datasetJson(dataset));
+                    first = false;
+                }
+                return json.append("]}").toString();
+            }
+            case "POST": {
+                String name = required(query, "name");
+                SiteArrays sites;
+                if (query.containsKey("path")) {
+                    sites = SiteLoader.load(Paths.get(query.get("path")));
+                } else {
+                    WorkloadGenerator.Distribution distribution =
+                            WorkloadGenerator.Distribution.valueOf(required(query, "distribution").toUpperCase());
+                    long seed = Long.parseLong(query.getOrDefault("seed", "42"));
+                    double density = Double.parseDouble(query.getOrDefault("density", "0.1"));
+                    int n = Integer.parseInt(required(query, "n"));
+                    sites = new WorkloadGenerator(seed, density).generate(distribution, n).toSiteArrays();
+                }
+                return datasetJson(load(name, sites));
+            }
+            case "DELETE": {
+                String name = required(query, "name");
+                if (!unload(name)) throw new NoSuchElementException("Unknown dataset: " + name);
+                return "{\"removed\": \"" + escape(name) + "\"}";
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported method " + method);
+        }
+    }
+
+    private String optimalEndpoint(String method, Map<String, String> query) {
+        long start = System.nanoTime();
+        Dataset dataset = dataset(required(query, "dataset"));
+        double viewRange = viewRange(query);
+        Placement placement = optimal(dataset, viewRange);
+        return "{" + queryJson(dataset, viewRange, start) + ", \"optimal\": "
+                + (placement == null ? "null" : placementJson(placement)) + "}";
+    }
+
+    private String topKEndpoint(String method, Map<String, String> query) {
+        long start = System.nanoTime();
+        Dataset dataset = dataset(required(query, "dataset"));
+        double viewRange = viewRange(query);
+        int k = Integer.parseInt(required(query, "k"));
+        if (k < 0) throw new IllegalArgumentException("k must not be negative: " + k);
+
+        StringBuilder json = new StringBuilder("[");
+        List<Placement> placements = topK(dataset, viewRange, k);
+        for (int i = 0; i < placements.size(); i++) {
+            if (i > 0) json.append(", ");
+            json.append(placementJson(placements.get(i)));
+        }
+        return "{" + queryJson(dataset, viewRange, start) + ", \"k\": " + k + ", \"positions\": " + json.append(']') + "}";
+    }
+
+    private String dominatingSetEndpoint(String method, Map<String, String> query) {
+        long start = System.nanoTime();
+        Dataset dataset = dataset(required(query, "dataset"));
+        double viewRange = viewRange(query);
+        int[] ids = dominatingSet(dataset, viewRange);
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) json.append(", ");
+            json.append(ids[i]);
+        }
+        return "{" + queryJson(dataset, viewRange, start) + ", \"size\": " + ids.length + ", \"ids\": " + json.append(']') + "}";
+    }
+
+    private static String queryJson(Dataset dataset, double viewRange, long start) {
+        return "\"dataset\": \"" + escape(dataset.name) + "\", \"version\": " + dataset.version
+                + ", \"viewRange\": " + viewRange
+                + ", \"millis\": " + String.format("%.3f", (System.nanoTime() - start) / 1e6);
+    }
+
+    private static String datasetJson(Dataset dataset) {
+        return "{\"name\": \"" + escape(dataset.name) + "\", \"version\": " + dataset.version
+                + ", \"sites\": " + dataset.sites.size
+                + ", \"loadMillis\": " + String.format("%.3f", dataset.loadNanos / 1e6) + "}";
+    }
+
+    private static String placementJson(Placement placement) {
+        return "{\"id\": " + placement.id + ", \"lat\": " + placement.lat + ", \"lon\": " + placement.lon
+                + ", \"covered\": " + placement.covered + "}";
+    }
+
+    private static String error(Throwable e) {
+        return "{\"error\": \"" + escape(String.valueOf(e.getMessage())) + "\"}";
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') escaped.append('\\').append(c);
+            else if (c < 0x20) escaped.append(String.format("\\u%04x", (int) c));
+            else escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static double viewRange(Map<String, String> query) {
+        double viewRange = Double.parseDouble(required(query, "viewRange"));
+        if (!(viewRange > 0) || Double.isInfinite(viewRange)) {
+            throw new IllegalArgumentException("View range must be positive and finite: " + viewRange);
+        }
+        return viewRange;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) throw new IllegalArgumentException("Missing parameter " + name);
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) continue;
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) throw new IllegalArgumentException("Expected an option, found " + args[i]);
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    // Usage: PlacementService [--port 8080] [--threads n] [--cacheEntries 256] [--cacheMegabytes 512]
+    //                         [--load name=path,name=path]
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseArgs(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int cacheEntries = Integer.parseInt(options.getOrDefault("cacheEntries", "256"));
+        long cacheBytes = Long.parseLong(options.getOrDefault("cacheMegabytes", "512")) << 20;
+
+        PlacementService service = new PlacementService(cacheEntries, cacheBytes);
+        for (String load : options.getOrDefault("load", "").split(",")) {
+            if (load.isEmpty()) continue;
+            int equals = load.indexOf('=');
+            if (equals < 0) throw new IllegalArgumentException("Expected name=path, found " + load);
+            Dataset dataset = service.load(load.substring(0, equals), SiteLoader.load(Paths.get(load.substring(equals + 1))));
+            System.out.printf("Loaded %s: %d sites in %.1f ms%n", dataset.name, dataset.sites.size, dataset.loadNanos / 1e6);
+        }
+
+        service.start(port, threads);
+        System.out.println("Placement service listening on http://localhost:" + port);
+    }
+}
@@ -0,0 +1,118 @@
+package DaaProject;
+
+import java.util.Arrays;
+
+// Growable column store of sites: ids and the Cartesian coordinates produced by the same
+// latitude/longitude conversion the placement variants use. Bulk loaders fill it directly,
+// so large inventories never materialise one Node object per site.
+public final class SiteArrays implements SiteColumns {
+
+    private static final double R = 6371; // Earth's radius in km
+
+    int size;
+    int[] ids;
+    double[] xs, ys, zs;
+
+    // Position each site had when it was added; null while the sites are still in that order
+    int[] sourceIndex;
+
+    SiteArrays(int capacity) {
+        capacity = Math.max(1, capacity);
+        ids = new int[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        zs = new double[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int id(int i) {
+        return ids[i];
+    }
+
+    @Override
+    public double x(int i) {
+        return xs[i];
+    }
+
+    @Override
+    public double y(int i) {
+        return ys[i];
+    }
+
+    @Override
+    public double z(int i) {
+        return zs[i];
+    }
+
+    @Override
+    public void copyCoordinates(int from, int to, double[] xDest, double[] yDest, double[] zDest) {
+        System.arraycopy(xs, from, xDest, 0, to - from);
+        System.arraycopy(ys, from, yDest, 0, to - from);
+        System.arraycopy(zs, from, zDest, 0, to - from);
+    }
+
+    int sourceIndex(int i) {
+        return sourceIndex == null ? i : sourceIndex[i];
+    }
+
+    // Reorder the sites along a Hilbert curve over their Cartesian coordinates, so sites that are
+    // close in space are close in the arrays. Ids move with their sites and sourceIndex maps each
+    // position back to where the site was added. Engines that break ties by list order may pick a
+    // different site among equally good ones after reordering.
+    void sortAlongHilbertCurve() {
+        int[] order = HilbertCurve.sortOrder(xs, ys, zs, size);
+
+        int[] newIds = new int[size];
+        int[] newSourceIndex = new int[size];
+        double[] newXs = new double[size], newYs = new double[size], newZs = new double[size];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            newIds[i] = ids[from];
+            newXs[i] = xs[from];
+            newYs[i] = ys[from];
+            newZs[i] = zs[from];
+            newSourceIndex[i] = sourceIndex(from);
+        }
+
+        ids = newIds;
+        xs = newXs;
+        ys = newYs;
+        zs = newZs;
+        sourceIndex = newSourceIndex;
+    }
+
+    // Latitude/Longitude to Cartesian conversion
+    void add(int id, double lat, double lon) {
+        double latRadians = Math.toRadians(lat), lonRadians = Math.toRadians(lon);
+        double cosLat = Math.cos(latRadians);
+        addCartesian(id, R * cosLat * Math.cos(lonRadians), R * cosLat * Math.sin(lonRadians), R * Math.sin(latRadians));
+    }
+
+    void addCartesian(int id, double x, double y, double z) {
+        if (size == ids.length) grow();
+        if (sourceIndex != null) {
+            if (sourceIndex.length < ids.length) sourceIndex = Arrays.copyOf(sourceIndex, ids.length);
+            sourceIndex[size] = size;
+        }
+        ids[size] = id;
+        xs[size] = x;
+        ys[size] = y;
+        zs[size] = z;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, ids.length * 2L));
+        if (capacity == ids.length) throw new IllegalStateException("Site store is full: " + size);
+
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        zs = Arrays.copyOf(zs, capacity);
+    }
+}
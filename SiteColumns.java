@@ -0,0 +1,63 @@
+package DaaProject;
+
+// Column-wise read access to a site inventory: site i has an id and Cartesian coordinates. The
+// indexes and engines that accept a SiteColumns read it directly, so sites held in primitive
+// arrays or off-heap memory never have to be turned into Node objects.
+public interface SiteColumns {
+
+    int size();
+
+    int id(int i);
+
+    double x(int i);
+
+    double y(int i);
+
+    double z(int i);
+
+    // Copies the coordinates of sites [from, to) to the start of the given arrays
+    default void copyCoordinates(int from, int to, double[] xs, double[] ys, double[] zs) {
+        for (int i = from; i < to; i++) {
+            xs[i - from] = x(i);
+            ys[i - from] = y(i);
+            zs[i - from] = z(i);
+        }
+    }
+
+    // View of coordinate arrays whose ids are the array indices
+    static SiteColumns of(double[] xs, double[] ys, double[] zs, int size) {
+        return new SiteColumns() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public int id(int i) {
+                return i;
+            }
+
+            @Override
+            public double x(int i) {
+                return xs[i];
+            }
+
+            @Override
+            public double y(int i) {
+                return ys[i];
+            }
+
+            @Override
+            public double z(int i) {
+                return zs[i];
+            }
+
+            @Override
+            public void copyCoordinates(int from, int to, double[] xDest, double[] yDest, double[] zDest) {
+                System.arraycopy(xs, from, xDest, 0, to - from);
+                System.arraycopy(ys, from, yDest, 0, to - from);
+                System.arraycopy(zs, from, zDest, 0, to - from);
+            }
+        };
+    }
+}
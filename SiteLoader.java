@@ -0,0 +1,346 @@
+package DaaProject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Bulk loaders for site inventories. CSV files are streamed through a FileChannel and
+// parsed byte by byte; the binary format is read through memory-mapped windows. Both
+// write straight into SiteArrays without building Node objects.
+//
+// CSV rows are "lat,lon" (ids assigned 1..n in file order) or "id,lat,lon", where the id must be
+// an integer in int range. The first row is a header, and skipped, only if its first field is
+// not a number; blank lines and a leading UTF-8 byte order mark are skipped too.
+//
+// Binary layout (little-endian): int magic, int version, long count, then count records
+// of {double lat, double lon, int id}.
+public final class SiteLoader {
+
+    static final int MAGIC = 0x53495445; // "SITE"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 20;
+
+    private static final int READ_BUFFER_BYTES = 1 << 20;
+    private static final long MAX_WINDOW_BYTES = (1L << 30) / RECORD_BYTES * RECORD_BYTES;
+
+    // Exact powers of ten for the fast decimal path
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private SiteLoader() {
+    }
+
+    // Receives one parsed record at a time
+    interface RecordSink {
+        void accept(int id, double lat, double lon);
+    }
+
+    // Loads a file, picking the format from its extension (".sites" is binary)
+    static SiteArrays load(Path path) throws IOException {
+        return path.getFileName().toString().endsWith(".sites") ? loadBinary(path) : loadCsv(path);
+    }
+
+    static SiteArrays loadCsv(Path path) throws IOException {
+        SiteArrays sites = new SiteArrays(1 << 16);
+        readCsv(path, sites::add);
+        return sites;
+    }
+
+    // Streams every CSV record into the sink
+    static void readCsv(Path path, RecordSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CsvParser parser = new CsvParser(sink);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) parser.accept(buffer.get());
+                buffer.clear();
+            }
+            parser.endOfLine();
+        }
+    }
+
+    static SiteArrays loadBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long count = readBinaryHeader(channel, path);
+            SiteArrays sites = new SiteArrays((int) count);
+            readBinaryRecords(channel, count, sites::add);
+            return sites;
+        }
+    }
+
+    // Loads a CSV or binary file into off-heap memory, picking the format as load does
+    static OffHeapSiteStore loadOffHeap(Path path) throws IOException {
+        OffHeapSiteStore store = new OffHeapSiteStore();
+        if (!path.getFileName().toString().endsWith(".sites")) {
+            readCsv(path, store::add);
+            return store;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readBinaryRecords(channel, readBinaryHeader(channel, path), store::add);
+            return store;
+        }
+    }
+
+    // Validates the header and returns the record count
+    private static long readBinaryHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC) throw new IOException("Not a site file: " + path);
+        if (header.getInt(4) != VERSION) throw new IOException("Unsupported site file version: " + header.getInt(4));
+
+        long count = header.getLong(8);
+        if (count < 0 || count > Integer.MAX_VALUE - 8) throw new IOException("Invalid site count: " + count);
+        if (channel.size() < HEADER_BYTES + count * RECORD_BYTES) throw new IOException("Truncated site file: " + path);
+        return count;
+    }
+
+    private static void readBinaryRecords(FileChannel channel, long count, RecordSink sink) throws IOException {
+        long remaining = count * RECORD_BYTES;
+        long position = HEADER_BYTES;
+
+        // A single mapping is capped at 2 GB, so walk the records in whole-record windows
+        while (remaining > 0) {
+            long windowBytes = Math.min(remaining, MAX_WINDOW_BYTES);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowBytes);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int offset = 0; offset < windowBytes; offset += RECORD_BYTES) {
+                sink.accept(window.getInt(offset + 16), window.getDouble(offset), window.getDouble(offset + 8));
+            }
+
+            position += windowBytes;
+            remaining -= windowBytes;
+        }
+    }
+
+    static void writeBinary(Path path, int[] ids, double[] lats, double[] lons, int count) throws IOException {
+        try (BinaryWriter writer = new BinaryWriter(path)) {
+            for (int i = 0; i < count; i++) writer.accept(ids[i], lats[i], lons[i]);
+        }
+    }
+
+    // Converts a CSV inventory to the binary format without holding it in memory
+    static long convertCsvToBinary(Path csv, Path binary) throws IOException {
+        try (BinaryWriter writer = new BinaryWriter(binary)) {
+            readCsv(csv, writer);
+            return writer.count;
+        }
+    }
+
+    // Streams records into a binary site file; the count is patched into the header on close
+    static final class BinaryWriter implements RecordSink, AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES / RECORD_BYTES * RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long count;
+
+        BinaryWriter(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+        }
+
+        @Override
+        public void accept(int id, double lat, double lon) {
+            if (buffer.remaining() < RECORD_BYTES) flush();
+            buffer.putDouble(lat).putDouble(lon).putInt(id);
+            count++;
+        }
+
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+                while (header.hasRemaining()) channel.write(header, header.position());
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Byte-at-a-time CSV state machine; numbers are accumulated as decimal mantissa and exponent
+    static final class CsvParser {
+        private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+        private final RecordSink sink;
+        private final double[] fields = new double[3];
+        private int fieldCount;
+        private long line = 1;
+        private int nextId = 1;
+        private boolean skipLine;
+        private int bomBytes; // leading bytes matched against UTF8_BOM, or -1 once past them
+
+        // The first field as an int, when it was written as one
+        private int firstFieldInt;
+        private boolean firstFieldIsInt;
+
+        private boolean inNumber;
+        private boolean negative;
+        private long mantissa;
+        private int digits;
+        private int decimalExponent;
+        private boolean afterPoint;
+        private boolean inExponent;
+        private boolean negativeExponent;
+        private int exponent;
+
+        // Raw characters of the current number, for values the fast path cannot round exactly
+        private final char[] text = new char[64];
+        private int textLength;
+
+        CsvParser(RecordSink sink) {
+            this.sink = sink;
+        }
+
+        void accept(byte b) {
+            if (bomBytes >= 0) {
+                if (b == UTF8_BOM[bomBytes]) {
+                    if (++bomBytes == UTF8_BOM.length) bomBytes = -1;
+                    return;
+                }
+                if (bomBytes > 0) throw new IllegalArgumentException("Malformed byte order mark on line 1");
+                bomBytes = -1;
+            }
+            if (b == '\n') {
+                endOfLine();
+                return;
+            }
+            if (skipLine) return;
+            if (b != ',' && b != ' ' && b != '\t' && b != '\r' && textLength < text.length) text[textLength++] = (char) b;
+
+            if (b >= '0' && b <= '9') {
+                inNumber = true;
+                if (inExponent) {
+                    if (exponent < 10000) exponent = exponent * 10 + (b - '0');
+                } else if (digits < 18) {
+                    if (mantissa != 0 || b != '0') digits++;
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (afterPoint) decimalExponent--;
+                } else if (!afterPoint) {
+                    decimalExponent++; // Digits beyond long precision only shift the magnitude
+                }
+            } else if (b == ',') {
+                endField();
+            } else if (b == '.' && !afterPoint && !inExponent) {
+                afterPoint = true;
+            } else if (b == '-' || b == '+') {
+                if (inExponent) negativeExponent = b == '-';
+                else if (!inNumber) negative = b == '-';
+                else invalid();
+            } else if ((b == 'e' || b == 'E') && inNumber && !inExponent) {
+                inExponent = true;
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                invalid();
+            }
+        }
+
+        void endOfLine() {
+            if (!skipLine) {
+                if (inNumber || fieldCount > 0) endField();
+                if (fieldCount == 2) {
+                    sink.accept(nextId++, fields[0], fields[1]);
+                } else if (fieldCount == 3) {
+                    if (!firstFieldIsInt) throw new IllegalArgumentException("Site id is not an int on line " + line);
+                    sink.accept(firstFieldInt, fields[1], fields[2]);
+                } else if (fieldCount != 0) {
+                    throw new IllegalArgumentException("Expected 2 or 3 columns on line " + line + ", found " + fieldCount);
+                }
+            }
+            fieldCount = 0;
+            skipLine = false;
+            resetNumber();
+            line++;
+        }
+
+        private void endField() {
+            if (!inNumber) invalid();
+            if (fieldCount == fields.length) {
+                throw new IllegalArgumentException("Too many columns on line " + line);
+            }
+            if (fieldCount == 0) {
+                // Integer syntax only: no point, no exponent, and no digits beyond the mantissa
+                long value = negative ? -mantissa : mantissa;
+                firstFieldIsInt = !afterPoint && !inExponent && decimalExponent == 0
+                        && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+                firstFieldInt = (int) value;
+            }
+            fields[fieldCount++] = toDouble();
+            resetNumber();
+        }
+
+        // A first line whose first field is not a number is treated as a header
+        private void invalid() {
+            if (line == 1 && fieldCount == 0) {
+                skipLine = true;
+                fieldCount = 0;
+                resetNumber();
+                return;
+            }
+            throw new IllegalArgumentException("Malformed number on line " + line);
+        }
+
+        private double toDouble() {
+            int scale = decimalExponent + (negativeExponent ? -exponent : exponent);
+            double value;
+            if (mantissa == 0) {
+                value = 0;
+            } else if (mantissa < (1L << 53) && scale >= -22 && scale <= 22) {
+                // Both operands are exact doubles, so a single operation rounds correctly
+                value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+            } else if (textLength < text.length) {
+                return Double.parseDouble(new String(text, 0, textLength));
+            } else {
+                value = mantissa * Math.pow(10, scale);
+            }
+            return negative ? -value : value;
+        }
+
+        private void resetNumber() {
+            inNumber = false;
+            negative = false;
+            mantissa = 0;
+            digits = 0;
+            decimalExponent = 0;
+            afterPoint = false;
+            inExponent = false;
+            negativeExponent = false;
+            exponent = 0;
+            textLength = 0;
+        }
+    }
+
+    // Usage: SiteLoader <input.csv> <output.sites>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: SiteLoader <input.csv> <output.sites>");
+            return;
+        }
+
+        long start = System.nanoTime();
+        long count = convertCsvToBinary(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.printf("Converted %d sites in %.1f ms%n", count, (System.nanoTime() - start) / 1e6);
+    }
+}
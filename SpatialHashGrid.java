@@ -0,0 +1,162 @@
+package DaaProject;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Uniform spatial-hash grid for fixed-radius queries. Points are bucketed into cubic cells of side
+// cellSize and stored cell by cell in flat arrays; an open-addressing table maps each occupied
+// cell to its run of slots. With cellSize equal to the view range a range query scans the 27
+// cells around the query point.
+public final class SpatialHashGrid {
+
+    private static final int AXIS_BITS = 21;
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+    private static final int AXIS_BIAS = 1 << (AXIS_BITS - 1);
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // The cell table is a power of two at least twice the point count, and Java arrays stop
+    // at 2^31 - 1 elements, so a grid holds at most 2^29 points
+    static final int MAX_SIZE = 1 << 29;
+
+    final double cellSize;
+    final int size;
+    final double[] xs, ys, zs; // points in cell order
+    final int[] order;         // index of each slot's point in the source arrays
+
+    private final long[] tableKeys;
+    private final int[] tableStart, tableEnd;
+    private final int tableMask;
+
+    SpatialHashGrid(double[] xs, double[] ys, double[] zs, int size, double cellSize) {
+        this(SiteColumns.of(xs, ys, zs, size), cellSize);
+    }
+
+    // Grid over a column store; source indices passed to visitors are positions in the store.
+    // The points are copied onto the heap (32 bytes each, plus the cell table).
+    SpatialHashGrid(SiteColumns sites, double cellSize) {
+        if (!(cellSize > 0)) throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+
+        int size = sites.size();
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("A spatial-hash grid holds at most " + MAX_SIZE + " points: " + size);
+        }
+        this.cellSize = cellSize;
+        this.size = size;
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.zs = new double[size];
+        this.order = new int[size];
+
+        int capacity = (int) (Long.highestOneBit(Math.max(1L, size) * 2 - 1) << 1);
+        tableKeys = new long[capacity];
+        tableStart = new int[capacity];
+        tableEnd = new int[capacity];
+        tableMask = capacity - 1;
+        Arrays.fill(tableKeys, EMPTY);
+
+        // First pass: count the points per cell
+        int[] slotOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            int slot = insert(cellKey(sites.x(i), sites.y(i), sites.z(i)));
+            tableEnd[slot]++;
+            slotOf[i] = slot;
+        }
+
+        // Prefix sums turn the counts into runs, then the second pass scatters the points
+        int offset = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            if (tableKeys[slot] == EMPTY) continue;
+            int count = tableEnd[slot];
+            tableStart[slot] = offset;
+            tableEnd[slot] = offset;
+            offset += count;
+        }
+        for (int i = 0; i < size; i++) {
+            int position = tableEnd[slotOf[i]]++;
+            xs[position] = sites.x(i);
+            ys[position] = sites.y(i);
+            zs[position] = sites.z(i);
+            this.order[position] = i;
+        }
+    }
+
+    // Passes the source index of every point within range of (x, y, z) to the visitor
+    void forEachInRange(double x, double y, double z, double range, IntConsumer visitor) {
+        int reach = (int) Math.ceil(range / cellSize);
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        double rangeSquared = range * range;
+
+        for (int i = cx - reach; i <= cx + reach; i++) {
+            for (int j = cy - reach; j <= cy + reach; j++) {
+                for (int k = cz - reach; k <= cz + reach; k++) {
+                    int slot = find(pack(i, j, k));
+                    if (slot < 0) continue;
+                    for (int p = tableStart[slot]; p < tableEnd[slot]; p++) {
+                        if (Geometry.withinRange(x, y, z, xs[p], ys[p], zs[p], rangeSquared)) {
+                            visitor.accept(order[p]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Number of points within range of (x, y, z)
+    int rangeCount(double x, double y, double z, double range) {
+        int reach = (int) Math.ceil(range / cellSize);
+        int cx = cell(x), cy = cell(y), cz = cell(z);
+        double rangeSquared = range * range;
+        int count = 0;
+
+        for (int i = cx - reach; i <= cx + reach; i++) {
+            for (int j = cy - reach; j <= cy + reach; j++) {
+                for (int k = cz - reach; k <= cz + reach; k++) {
+                    int slot = find(pack(i, j, k));
+                    if (slot < 0) continue;
+                    count += Geometry.countWithinRange(x, y, z, xs, ys, zs,
+                            tableStart[slot], tableEnd[slot], rangeSquared);
+                }
+            }
+        }
+        return count;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private long cellKey(double x, double y, double z) {
+        return pack(cell(x), cell(y), cell(z));
+    }
+
+    // Cells further than 2^20 from the origin wrap around; that only adds points to scan,
+    // since every candidate is still checked against the exact distance
+    private static long pack(int cx, int cy, int cz) {
+        return ((cx + AXIS_BIAS) & AXIS_MASK) << (2 * AXIS_BITS)
+                | ((cy + AXIS_BIAS) & AXIS_MASK) << AXIS_BITS
+                | ((cz + AXIS_BIAS) & AXIS_MASK);
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int insert(long key) {
+        int slot = hash(key) & tableMask;
+        while (tableKeys[slot] != EMPTY && tableKeys[slot] != key) slot = (slot + 1) & tableMask;
+        tableKeys[slot] = key;
+        return slot;
+    }
+
+    private int find(long key) {
+        int slot = hash(key) & tableMask;
+        while (tableKeys[slot] != EMPTY) {
+            if (tableKeys[slot] == key) return slot;
+            slot = (slot + 1) & tableMask;
+        }
+        return -1;
+    }
+}
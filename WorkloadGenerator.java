@@ -0,0 +1,238 @@
+package DaaProject;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+// Seeded generator of synthetic site inventories with realistic neighbourhood sizes. Sites are
+// placed in a square region around (centerLat, centerLon) whose side is chosen so that the
+// average density is `density` sites per square kilometre; the distribution decides how they
+// are arranged inside it. Generation is streamed one site at a time, so files with tens of
+// millions of sites can be written without holding them in memory.
+public final class WorkloadGenerator {
+
+    private static final double KM_PER_DEGREE = 111.2;
+
+    enum Distribution {
+        // Independent uniform positions over the region
+        UNIFORM,
+        // Gaussian clusters of about clusterSize sites, each concentration times denser than the
+        // regional average
+        GAUSSIAN_CLUSTERS,
+        // Sites along the streets of a rectangular street grid, with extra sites at intersections
+        CITY_GRID,
+        // Sites along winding polylines crossing the region, like cameras along highways
+        ROAD_CORRIDORS
+    }
+
+    final long seed;
+    final double density;
+    double centerLat = 20.0, centerLon = 78.0;
+
+    int clusterSize = 2000;
+    double concentration = 20.0;
+    double blockSize = 0.25;        // km between parallel streets
+    double intersectionShare = 0.3; // fraction of city sites placed at intersections
+    double corridorSpacing = 20.0;  // km of region side per road
+    double corridorSegment = 5.0;   // km per polyline segment
+    double corridorWidth = 0.05;    // km standard deviation across the road
+
+    WorkloadGenerator(long seed, double density) {
+        if (density <= 0) throw new IllegalArgumentException("Density must be positive: " + density);
+        this.seed = seed;
+        this.density = density;
+    }
+
+    // Generated site coordinates; site i has id i + 1
+    static final class Workload {
+        final double[] lats, lons;
+
+        Workload(double[] lats, double[] lons) {
+            this.lats = lats;
+            this.lons = lons;
+        }
+
+        int size() {
+            return lats.length;
+        }
+
+        SiteArrays toSiteArrays() {
+            SiteArrays sites = new SiteArrays(lats.length);
+            for (int i = 0; i < lats.length; i++) sites.add(i + 1, lats[i], lons[i]);
+            return sites;
+        }
+    }
+
+    Workload generate(Distribution distribution, int n) {
+        double[] lats = new double[n], lons = new double[n];
+        generate(distribution, n, (id, lat, lon) -> {
+            lats[id - 1] = lat;
+            lons[id - 1] = lon;
+        });
+        return new Workload(lats, lons);
+    }
+
+    // Binary (".sites") or CSV output depending on the extension
+    long generateToFile(Distribution distribution, int n, Path path) throws IOException {
+        if (path.getFileName().toString().endsWith(".sites")) {
+            try (SiteLoader.BinaryWriter writer = new SiteLoader.BinaryWriter(path)) {
+                generate(distribution, n, writer);
+                return writer.count;
+            }
+        }
+
+        try (FileWriter writer = new FileWriter(path.toFile())) {
+            writer.append("id,lat,lon\n");
+            StringBuilder line = new StringBuilder();
+            generate(distribution, n, (id, lat, lon) -> {
+                line.setLength(0);
+                line.append(id).append(',').append(lat).append(',').append(lon).append('\n');
+                try {
+                    writer.append(line);
+                } catch (IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            });
+            return n;
+        }
+    }
+
+    // Emits n sites with ids 1..n; the same seed always gives the same sites
+    void generate(Distribution distribution, int n, SiteLoader.RecordSink sink) {
+        Random random = new Random(seed);
+        double side = Math.sqrt(n / density);
+
+        switch (distribution) {
+            case UNIFORM:
+                for (int i = 1; i <= n; i++) {
+                    emit(sink, i, (random.nextDouble() - 0.5) * side, (random.nextDouble() - 0.5) * side);
+                }
+                break;
+            case GAUSSIAN_CLUSTERS:
+                generateClusters(random, n, side, sink);
+                break;
+            case CITY_GRID:
+                generateCityGrid(random, n, side, sink);
+                break;
+            case ROAD_CORRIDORS:
+                generateCorridors(random, n, side, sink);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+    }
+
+    private void generateClusters(Random random, int n, double side, SiteLoader.RecordSink sink) {
+        int clusters = Math.max(1, n / clusterSize);
+        double[] centerXs = new double[clusters], centerYs = new double[clusters], sigmas = new double[clusters];
+
+        // A cluster of clusterSize sites at concentration times the mean density covers about
+        // clusterSize / (density * concentration) square km; sizes vary log-normally around that
+        double baseSigma = Math.sqrt(clusterSize / (density * concentration) / (2 * Math.PI));
+        for (int c = 0; c < clusters; c++) {
+            centerXs[c] = (random.nextDouble() - 0.5) * side;
+            centerYs[c] = (random.nextDouble() - 0.5) * side;
+            sigmas[c] = baseSigma * Math.exp(0.5 * random.nextGaussian());
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int c = random.nextInt(clusters);
+            emit(sink, i, centerXs[c] + random.nextGaussian() * sigmas[c], centerYs[c] + random.nextGaussian() * sigmas[c]);
+        }
+    }
+
+    private void generateCityGrid(Random random, int n, double side, SiteLoader.RecordSink sink) {
+        int streets = Math.max(1, (int) (side / blockSize));
+        double spacing = side / streets;
+        double jitter = 0.005; // km, about the width of a street
+
+        for (int i = 1; i <= n; i++) {
+            double x, y;
+            if (random.nextDouble() < intersectionShare) {
+                x = (random.nextInt(streets + 1) - streets / 2.0) * spacing;
+                y = (random.nextInt(streets + 1) - streets / 2.0) * spacing;
+            } else if (random.nextBoolean()) {
+                x = (random.nextDouble() - 0.5) * side;
+                y = (random.nextInt(streets + 1) - streets / 2.0) * spacing;
+            } else {
+                x = (random.nextInt(streets + 1) - streets / 2.0) * spacing;
+                y = (random.nextDouble() - 0.5) * side;
+            }
+            emit(sink, i, x + random.nextGaussian() * jitter, y + random.nextGaussian() * jitter);
+        }
+    }
+
+    private void generateCorridors(Random random, int n, double side, SiteLoader.RecordSink sink) {
+        int roads = Math.max(1, (int) Math.round(side / corridorSpacing));
+        int segmentsPerRoad = Math.max(1, (int) Math.ceil(1.5 * side / corridorSegment));
+        int vertices = roads * (segmentsPerRoad + 1);
+
+        // Each road is a random walk entering from a random edge and heading across the region
+        double[] vertexXs = new double[vertices], vertexYs = new double[vertices];
+        double[] cumulative = new double[roads * segmentsPerRoad]; // running length at the end of each segment
+        double total = 0;
+        for (int road = 0; road < roads; road++) {
+            double heading = random.nextInt(4) * Math.PI / 2 + (random.nextDouble() - 0.5) * Math.PI / 3;
+            double x = -Math.cos(heading) * side / 2 + (random.nextDouble() - 0.5) * side * Math.abs(Math.sin(heading));
+            double y = -Math.sin(heading) * side / 2 + (random.nextDouble() - 0.5) * side * Math.abs(Math.cos(heading));
+
+            int base = road * (segmentsPerRoad + 1);
+            vertexXs[base] = x;
+            vertexYs[base] = y;
+            for (int s = 0; s < segmentsPerRoad; s++) {
+                heading += random.nextGaussian() * Math.toRadians(15);
+                x += Math.cos(heading) * corridorSegment;
+                y += Math.sin(heading) * corridorSegment;
+                vertexXs[base + s + 1] = x;
+                vertexYs[base + s + 1] = y;
+                total += corridorSegment;
+                cumulative[road * segmentsPerRoad + s] = total;
+            }
+        }
+
+        for (int i = 1; i <= n; i++) {
+            double position = random.nextDouble() * total;
+            int segment = Arrays.binarySearch(cumulative, position);
+            if (segment < 0) segment = -segment - 1;
+            segment = Math.min(segment, cumulative.length - 1);
+
+            int road = segment / segmentsPerRoad;
+            int from = road * (segmentsPerRoad + 1) + segment % segmentsPerRoad;
+            double t = 1 - (cumulative[segment] - position) / corridorSegment;
+            double dx = vertexXs[from + 1] - vertexXs[from], dy = vertexYs[from + 1] - vertexYs[from];
+            double offset = random.nextGaussian() * corridorWidth / corridorSegment;
+
+            emit(sink, i, vertexXs[from] + t * dx - offset * dy, vertexYs[from] + t * dy + offset * dx);
+        }
+    }
+
+    // Local east/north offsets in km to latitude and longitude
+    private void emit(SiteLoader.RecordSink sink, int id, double east, double north) {
+        double lat = Math.max(-89.0, Math.min(89.0, centerLat + north / KM_PER_DEGREE));
+        double lon = centerLon + east / (KM_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+        lon = ((lon + 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+        sink.accept(id, lat, lon);
+    }
+
+    // Usage: WorkloadGenerator <distribution> <n> <output.sites|output.csv> [seed] [density]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: WorkloadGenerator <distribution> <n> <output.sites|output.csv> [seed] [density]");
+            System.out.println("Distributions: " + Arrays.toString(Distribution.values()));
+            return;
+        }
+
+        Distribution distribution = Distribution.valueOf(args[0].toUpperCase());
+        int n = Integer.parseInt(args[1]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+        double density = args.length > 4 ? Double.parseDouble(args[4]) : 0.1;
+
+        long startTime = System.nanoTime();
+        long count = new WorkloadGenerator(seed, density).generateToFile(distribution, n, Paths.get(args[2]));
+        System.out.printf("Wrote %d %s sites to %s in %.1f ms%n", count, distribution, args[2],
+                (System.nanoTime() - startTime) / 1_000_000.0);
+    }
+}